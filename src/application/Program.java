@@ -18,16 +18,28 @@ public class Program {
 		ChessMatch chessMatch = new ChessMatch();
 		ChessPiece[][] backupPieces = new ChessPiece[8][8];
 		List<ChessPiece> captured = new ArrayList<>();
+		//peça capturada em cada lance (ou null), para tirar da lista ao desfazer
+		List<ChessPiece> capturedByMove = new ArrayList<>();
 		
-		while(!chessMatch.getCheckMate()) {
+		while(!chessMatch.getCheckMate() && !chessMatch.getStalemate()) {
 			try {
 				UI.clearScreen();
 				UI.printMatch(chessMatch, captured);
 				System.out.println();
-				System.out.print("Origem: ");
-				ChessPosition source = UI.readChessPosition(sc);
+				System.out.print("Origem (ou U para desfazer): ");
+				String input = sc.nextLine();
 				
-				boolean[][] possibleMoves = chessMatch.possibleMoves(source);
+				if(input.equalsIgnoreCase("U")) {
+					if(chessMatch.getPly() > 0) {
+						chessMatch.unmakeMove();
+						captured.remove(capturedByMove.remove(capturedByMove.size() - 1));
+					}
+					continue;
+				}
+				
+				ChessPosition source = UI.parseChessPosition(input);
+				
+				boolean[][] possibleMoves = chessMatch.legalMoves(source);
 				UI.clearScreen();
 				UI.printBoard(chessMatch.getPieces(), possibleMoves);
 				
@@ -38,6 +50,7 @@ public class Program {
 				backupPieces = chessMatch.getPieces();
 				
 				ChessPiece capturedPiece = chessMatch.performChessMove(source, target);
+				capturedByMove.add(capturedPiece);
 				
 				if(capturedPiece != null) {
 					captured.add(capturedPiece);
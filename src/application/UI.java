@@ -44,7 +44,9 @@ public class UI {
 		System.out.println();
 		System.out.println("Turno: " + chessMatch.getTurn());
 		
-		if(!chessMatch.getCheckMate()) {
+		if(chessMatch.getStalemate()) {
+			System.out.println("AFOGAMENTO! Empate");
+		} else if(!chessMatch.getCheckMate()) {
 			System.out.printf("Esperando jogador: %s", chessMatch.getCurrentPlayer() == Color.WHITE ? "BRANCO\n" : "PRETO\n");
 			if(chessMatch.getCheck()) {
 				System.out.println("CHEQUE!");
@@ -110,9 +112,11 @@ public class UI {
 	}
 	
 	public static ChessPosition readChessPosition(Scanner sc) {
+		return parseChessPosition(sc.nextLine());
+	}
+	
+	public static ChessPosition parseChessPosition(String s) {
 		try {
-			String s = sc.nextLine();
-			
 			int row = Integer.parseInt(s.substring(1));
 			char column = s.charAt(0);
 			return new ChessPosition(row, column);
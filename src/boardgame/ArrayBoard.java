@@ -0,0 +1,91 @@
+package boardgame;
+
+public class ArrayBoard implements Board {
+	
+	private int rows;
+	private int columns;
+	private Piece[][] pieces;
+	
+	public ArrayBoard(int rows, int columns) {
+		if(rows < 1 || columns < 1) {
+			throw new BoardException("Erro ao criar tabuleiro: Necessario que haja ao menos 1 linha e 1 coluna");
+		}
+		
+		this.rows = rows;
+		this.columns = columns;
+		pieces = new Piece[rows][columns];
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+	
+	@Override
+	public Piece piece(int row, int column) {
+		if(!positionExists(row, column)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		return pieces[row][column];
+	}
+	
+	@Override
+	public Piece piece(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		return pieces[position.getRow()][position.getColumn()];
+	}
+	
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		if(thereIsAPiece(position)) {
+			throw new BoardException("Já existe uma peça na posição " + position);
+		}
+		
+		pieces[position.getRow()][position.getColumn()] = piece;
+		piece.position = position;
+	}
+	
+	@Override
+	public Piece removePiece(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		if(piece(position) == null) {
+			return null;
+		}
+		
+		Piece auxPiece = piece(position);
+		auxPiece.position = null;
+		pieces[position.getRow()][position.getColumn()] = null;
+		return auxPiece;
+	}
+	
+	@Override
+	public boolean thereIsAPiece(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		return piece(position) != null;
+	}
+	
+	@Override
+	public boolean positionExists(Position position) {
+		return positionExists(position.getRow(), position.getColumn());
+	}
+	
+	@Override
+	public boolean positionExists(int row, int column) {
+		return row >= 0 && row < rows && column >= 0 && column < columns;
+	}
+}
\ No newline at end of file
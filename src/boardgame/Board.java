@@ -1,82 +1,22 @@
 package boardgame;
 
-public class Board {
+public interface Board {
 	
-	private int rows;
-	private int columns;
-	private Piece[][] pieces;
+	int getRows();
 	
-	public Board(int rows, int columns) {
-		if(rows < 1 || columns < 1) {
-			throw new BoardException("Erro ao criar tabuleiro: Necessario que haja ao menos 1 linha e 1 coluna");
-		}
-		
-		this.rows = rows;
-		this.columns = columns;
-		pieces = new Piece[rows][columns];
-	}
-
-	public int getRows() {
-		return rows;
-	}
-
-	public int getColumns() {
-		return columns;
-	}
+	int getColumns();
 	
-	public Piece piece(int row, int column) {
-		if(!positionExists(row, column)) {
-			throw new BoardException("Posição não está no tabuleiro");
-		}
-		
-		return pieces[row][column];
-	}
+	Piece piece(int row, int column);
 	
-	public Piece piece(Position position) {
-		if(!positionExists(position)) {
-			throw new BoardException("Posição não está no tabuleiro");
-		}
-		
-		return pieces[position.getRow()][position.getColumn()];
-	}
+	Piece piece(Position position);
 	
-	public void placePiece(Piece piece, Position position) {
-		if(thereIsAPiece(position)) {
-			throw new BoardException("Já existe uma peça na posição " + position);
-		}
-		
-		pieces[position.getRow()][position.getColumn()] = piece;
-		piece.position = position;
-	}
+	void placePiece(Piece piece, Position position);
 	
-	public Piece removePiece(Position position) {
-		if(!positionExists(position)) {
-			throw new BoardException("Posição não está no tabuleiro");
-		}
-		
-		if(piece(position) == null) {
-			return null;
-		}
-		
-		Piece auxPiece = piece(position);
-		auxPiece.position = null;
-		pieces[position.getRow()][position.getColumn()] = null;
-		return auxPiece;
-	}
+	Piece removePiece(Position position);
 	
-	public boolean thereIsAPiece(Position position) {
-		if(!positionExists(position)) {
-			throw new BoardException("Posição não está no tabuleiro");
-		}
-		
-		return piece(position) != null;
-	}
+	boolean thereIsAPiece(Position position);
 	
-	public boolean positionExists(Position position) {
-		return positionExists(position.getRow(), position.getColumn());
-	}
+	boolean positionExists(Position position);
 	
-	private boolean positionExists(int row, int column) {
-		return row >= 0 && row < rows && column >= 0 && column < columns;
-	}
+	boolean positionExists(int row, int column);
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package chess;
+
+public class AttackMap {
+	
+	private static final Color[] COLORS = Color.values();
+	
+	private BitBoard board;
+	private long[] attacksFrom = new long[BitBoard.SIZE * BitBoard.SIZE];
+	private long[] attacked = new long[2];
+	
+	public AttackMap(BitBoard board) {
+		this.board = board;
+	}
+	
+	public long getAttacked(Color color) {
+		return attacked[color.ordinal()];
+	}
+	
+	public long attacksFrom(int square) {
+		return attacksFrom[square];
+	}
+	
+	public boolean isAttacked(int square, Color color) {
+		return (attacked[color.ordinal()] & (1L << square)) != 0;
+	}
+	
+	public void refresh() {
+		long occupied = board.getOccupied();
+		
+		for(int square = 0; square < attacksFrom.length; square++) {
+			attacksFrom[square] = attacks(board.pieceAt(square), square, occupied);
+		}
+		
+		unite();
+	}
+	
+	//recalcula apenas as casas alteradas e as peças de longo alcance cujo raio passa por elas
+	public void update(long changed) {
+		long occupied = board.getOccupied();
+		long dirty = changed;
+		long sliders = occupied & ~changed & ~pawnsKnightsAndKings();
+		
+		while(sliders != 0) {
+			int square = Long.numberOfTrailingZeros(sliders);
+			
+			if((attacksFrom[square] & changed) != 0) {
+				dirty |= 1L << square;
+			}
+			
+			sliders &= sliders - 1;
+		}
+		
+		while(dirty != 0) {
+			int square = Long.numberOfTrailingZeros(dirty);
+			attacksFrom[square] = attacks(board.pieceAt(square), square, occupied);
+			dirty &= dirty - 1;
+		}
+		
+		unite();
+	}
+	
+	//lança raios e saltos a partir da casa alvo, sem depender do mapa
+	public boolean isSquareAttacked(int square, Color color) {
+		return attackersTo(square, color, board.getOccupied()) != 0;
+	}
+	
+	public long attackersTo(int square, Color color, long occupied) {
+		Color defender = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		long queens = board.getPieces(color, PieceType.QUEEN);
+		
+		return (Attacks.pawn(defender, square) & board.getPieces(color, PieceType.PAWN))
+			| (Attacks.knight(square) & board.getPieces(color, PieceType.KNIGHT))
+			| (Attacks.king(square) & board.getPieces(color, PieceType.KING))
+			| (Attacks.bishop(square, occupied) & (board.getPieces(color, PieceType.BISHOP) | queens))
+			| (Attacks.rook(square, occupied) & (board.getPieces(color, PieceType.ROOK) | queens));
+	}
+	
+	private void unite() {
+		for(Color color : COLORS) {
+			long pieces = board.getOccupied(color);
+			long union = 0L;
+			
+			while(pieces != 0) {
+				union |= attacksFrom[Long.numberOfTrailingZeros(pieces)];
+				pieces &= pieces - 1;
+			}
+			
+			attacked[color.ordinal()] = union;
+		}
+	}
+	
+	private long pawnsKnightsAndKings() {
+		long pieces = 0L;
+		
+		for(Color color : COLORS) {
+			pieces |= board.getPieces(color, PieceType.PAWN) | board.getPieces(color, PieceType.KNIGHT) | board.getPieces(color, PieceType.KING);
+		}
+		
+		return pieces;
+	}
+	
+	private static long attacks(ChessPiece piece, int square, long occupied) {
+		if(piece == null) {
+			return 0L;
+		}
+		
+		switch(piece.getType()) {
+		case PAWN:
+			return Attacks.pawn(piece.getColor(), square);
+		case KNIGHT:
+			return Attacks.knight(square);
+		case BISHOP:
+			return Attacks.bishop(square, occupied);
+		case ROOK:
+			return Attacks.rook(square, occupied);
+		case QUEEN:
+			return Attacks.queen(square, occupied);
+		default:
+			return Attacks.king(square);
+		}
+	}
+}
\ No newline at end of file
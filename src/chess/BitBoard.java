@@ -0,0 +1,186 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+
+public class BitBoard implements Board {
+	
+	public static final int SIZE = 8;
+	
+	private static final int TYPES = PieceType.values().length;
+	
+	//um long por tipo e cor de peça, indexado por cor * 6 + tipo
+	private long[] pieceBoards = new long[2 * TYPES];
+	private long[] colorBoards = new long[2];
+	private long occupied;
+	private long zobristKey;
+	private long pawnKey;
+	
+	//avaliação material e posicional mantida a cada peça colocada ou retirada
+	private int middlegame;
+	private int endgame;
+	private int phase;
+	private ChessPiece[] squares = new ChessPiece[SIZE * SIZE];
+	private Position[] positions = new Position[SIZE * SIZE];
+	
+	public BitBoard() {
+		for(int square = 0; square < positions.length; square++) {
+			positions[square] = new Position(square / SIZE, square % SIZE);
+		}
+	}
+	
+	@Override
+	public int getRows() {
+		return SIZE;
+	}
+	
+	@Override
+	public int getColumns() {
+		return SIZE;
+	}
+	
+	@Override
+	public Piece piece(int row, int column) {
+		if(!positionExists(row, column)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		return squares[square(row, column)];
+	}
+	
+	@Override
+	public Piece piece(Position position) {
+		return piece(position.getRow(), position.getColumn());
+	}
+	
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		if(thereIsAPiece(position)) {
+			throw new BoardException("Já existe uma peça na posição " + position);
+		}
+		
+		ChessPiece chessPiece = (ChessPiece) piece;
+		int square = square(position);
+		long bit = 1L << square;
+		
+		squares[square] = chessPiece;
+		pieceBoards[index(chessPiece.getColor(), chessPiece.getType())] |= bit;
+		colorBoards[chessPiece.getColor().ordinal()] |= bit;
+		occupied |= bit;
+		zobristKey ^= Zobrist.piece(chessPiece.getColor(), chessPiece.getType(), square);
+		if(chessPiece.getType() == PieceType.PAWN) {
+			pawnKey ^= Zobrist.piece(chessPiece.getColor(), PieceType.PAWN, square);
+		}
+		middlegame += PieceSquareTables.middlegame(chessPiece.getColor(), chessPiece.getType(), square);
+		endgame += PieceSquareTables.endgame(chessPiece.getColor(), chessPiece.getType(), square);
+		phase += PieceSquareTables.phase(chessPiece.getType());
+		chessPiece.setPosition(position);
+	}
+	
+	@Override
+	public Piece removePiece(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		int square = square(position);
+		ChessPiece piece = squares[square];
+		
+		if(piece == null) {
+			return null;
+		}
+		
+		long bit = 1L << square;
+		
+		squares[square] = null;
+		pieceBoards[index(piece.getColor(), piece.getType())] &= ~bit;
+		colorBoards[piece.getColor().ordinal()] &= ~bit;
+		occupied &= ~bit;
+		zobristKey ^= Zobrist.piece(piece.getColor(), piece.getType(), square);
+		if(piece.getType() == PieceType.PAWN) {
+			pawnKey ^= Zobrist.piece(piece.getColor(), PieceType.PAWN, square);
+		}
+		middlegame -= PieceSquareTables.middlegame(piece.getColor(), piece.getType(), square);
+		endgame -= PieceSquareTables.endgame(piece.getColor(), piece.getType(), square);
+		phase -= PieceSquareTables.phase(piece.getType());
+		piece.setPosition(null);
+		return piece;
+	}
+	
+	@Override
+	public boolean thereIsAPiece(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Posição não está no tabuleiro");
+		}
+		
+		return (occupied & (1L << square(position))) != 0;
+	}
+	
+	@Override
+	public boolean positionExists(Position position) {
+		return positionExists(position.getRow(), position.getColumn());
+	}
+	
+	@Override
+	public boolean positionExists(int row, int column) {
+		return row >= 0 && row < SIZE && column >= 0 && column < SIZE;
+	}
+	
+	public ChessPiece pieceAt(int square) {
+		return squares[square];
+	}
+	
+	//posições compartilhadas, para não alocar um Position por movimento
+	public Position position(int square) {
+		return positions[square];
+	}
+	
+	public Position position(int row, int column) {
+		return positions[square(row, column)];
+	}
+	
+	//chave zobrist apenas da disposição das peças
+	public long getZobristKey() {
+		return zobristKey;
+	}
+	
+	//só os peões, para a tabela de estrutura de peões
+	public long getPawnKey() {
+		return pawnKey;
+	}
+	
+	//do ponto de vista das brancas
+	public int getEvaluation() {
+		return PieceSquareTables.taper(middlegame, endgame, phase);
+	}
+	
+	public int getPhase() {
+		return phase;
+	}
+	
+	public long getOccupied() {
+		return occupied;
+	}
+	
+	public long getOccupied(Color color) {
+		return colorBoards[color.ordinal()];
+	}
+	
+	public long getPieces(Color color, PieceType type) {
+		return pieceBoards[index(color, type)];
+	}
+	
+	public static int square(int row, int column) {
+		return row * SIZE + column;
+	}
+	
+	public static int square(Position position) {
+		return square(position.getRow(), position.getColumn());
+	}
+	
+	private static int index(Color color, PieceType type) {
+		return color.ordinal() * TYPES + type.ordinal();
+	}
+}
\ No newline at end of file
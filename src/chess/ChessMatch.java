@@ -1,10 +1,9 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -16,40 +15,401 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 	
+	public static final int WHITE_KING_SIDE = 1;
+	public static final int WHITE_QUEEN_SIDE = 2;
+	public static final int BLACK_KING_SIDE = 4;
+	public static final int BLACK_QUEEN_SIDE = 8;
+	
+	private static final String FEN_PIECES = "pnbrqkPNBRQK";
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final Color[] COLORS = Color.values();
+	
+	//bits de historyFlags: jogador da vez e as situações de xeque da posição anterior ao lance
+	private static final int PLAYER_MASK = 1;
+	private static final int CHECK = 2;
+	private static final int CHECK_MATE = 4;
+	private static final int STALEMATE = 8;
+	private static final int SIDE_TO_MOVE_SHIFT = 4;
+	private static final int STATUS_STALE = 32;
+	
 	private int turn;
+	private int halfMoveClock;
 	private Color currentPlayer;
-	private Board board;
+	//quem tem o lance na posição; difere de currentPlayer só no fim de jogo, quando a vez volta para quem fez o último lance
+	private Color sideToMove;
+	private BitBoard board;
+	private MoveGenerator moveGenerator;
+	private AttackMap attackMap;
+	private MoveGeneration moveGeneration = MoveGeneration.ATTACK_TABLES;
 	private boolean check;
 	private boolean checkMate;
+	private boolean stalemate;
+	//makeMove(int) não recalcula xeque, mate e afogamento; os getters fazem isso quando são chamados
+	private boolean statusStale;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
 	
 	private List<Piece> piecesOnTheBoard = new ArrayList<>();
 	private List<Piece> capturedPieces = new ArrayList<>();
 	
+	//pilha de lances feitos por makeMove(int) e performChessMove, com o estado anterior de cada um para unmakeMove
+	private int ply;
+	private int[] historyMoves = new int[64];
+	private Piece[] historyCaptured = new Piece[64];
+	private ChessPiece[] historyEnPassant = new ChessPiece[64];
+	private ChessPiece[] historyPawns = new ChessPiece[64];
+	private ChessPiece[] historyPromoted = new ChessPiece[64];
+	private int[] historyHalfMoves = new int[64];
+	private int[] historyTurns = new int[64];
+	private int[] historyFlags = new int[64];
+	
+	//peças que saíram do tabuleiro em loadFen, reaproveitadas na próxima posição
+	private ChessPiece[][] sparePieces = new ChessPiece[2 * TYPES.length][16];
+	private int[] spareCounts = new int[2 * TYPES.length];
+	
 	public ChessMatch() {
-		board = new Board(8, 8);
+		board = new BitBoard();
+		attackMap = new AttackMap(board);
+		moveGenerator = new MoveGenerator(this, board, attackMap);
 		turn = 1;
 		currentPlayer = Color.WHITE;
+		sideToMove = Color.WHITE;
 		initialSetup();
+		attackMap.refresh();
+	}
+	
+	public ChessMatch(String fen) {
+		board = new BitBoard();
+		attackMap = new AttackMap(board);
+		moveGenerator = new MoveGenerator(this, board, attackMap);
+		loadFen(fen);
+	}
+	
+	//substitui a posição atual, reaproveitando este ChessMatch e suas peças
+	public void loadFen(String fen) {
+		clear();
+		
+		int length = fen.length();
+		int i = skipSpaces(fen, 0);
+		int row = 0;
+		int column = 0;
+		
+		//disposição das peças
+		for(; i < length && fen.charAt(i) != ' '; i++) {
+			char c = fen.charAt(i);
+			
+			if(c == '/') {
+				if(column != BitBoard.SIZE) {
+					throw invalidFen(fen);
+				}
+				
+				row++;
+				column = 0;
+			} else if(c >= '1' && c <= '8') {
+				column += c - '0';
+			} else {
+				int index = FEN_PIECES.indexOf(c);
+				if(index < 0 || row >= BitBoard.SIZE || column >= BitBoard.SIZE) {
+					throw invalidFen(fen);
+				}
+				
+				ChessPiece piece = obtainPiece(TYPES[index % TYPES.length], (index < TYPES.length) ? Color.BLACK : Color.WHITE);
+				board.placePiece(piece, board.position(row, column++));
+				piecesOnTheBoard.add(piece);
+			}
+		}
+		
+		if(row != BitBoard.SIZE - 1 || column != BitBoard.SIZE || board.getPieces(Color.WHITE, PieceType.KING) == 0 || board.getPieces(Color.BLACK, PieceType.KING) == 0) {
+			throw invalidFen(fen);
+		}
+		
+		//vez
+		i = skipSpaces(fen, i);
+		if(i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+			throw invalidFen(fen);
+		}
+		currentPlayer = (fen.charAt(i++) == 'w') ? Color.WHITE : Color.BLACK;
+		sideToMove = currentPlayer;
+		
+		//roque
+		int rights = 0;
+		for(i = skipSpaces(fen, i); i < length && fen.charAt(i) != ' '; i++) {
+			switch(fen.charAt(i)) {
+			case 'K': rights |= WHITE_KING_SIDE; break;
+			case 'Q': rights |= WHITE_QUEEN_SIDE; break;
+			case 'k': rights |= BLACK_KING_SIDE; break;
+			case 'q': rights |= BLACK_QUEEN_SIDE; break;
+			case '-': break;
+			default: throw invalidFen(fen);
+			}
+		}
+		
+		//en passant
+		int enPassantColumn = -1;
+		i = skipSpaces(fen, i);
+		if(i < length && fen.charAt(i) != '-') {
+			enPassantColumn = fen.charAt(i) - 'a';
+			
+			if(enPassantColumn < 0 || enPassantColumn >= BitBoard.SIZE) {
+				throw invalidFen(fen);
+			}
+		}
+		while(i < length && fen.charAt(i) != ' ') {
+			i++;
+		}
+		
+		//contadores, opcionais
+		int fullMoves = 1;
+		i = skipSpaces(fen, i);
+		if(i < length) {
+			halfMoveClock = 0;
+			for(; i < length && fen.charAt(i) != ' '; i++) {
+				halfMoveClock = halfMoveClock * 10 + digit(fen, i);
+			}
+			
+			i = skipSpaces(fen, i);
+			if(i < length) {
+				fullMoves = 0;
+				for(; i < length && fen.charAt(i) != ' '; i++) {
+					fullMoves = fullMoves * 10 + digit(fen, i);
+				}
+			}
+		}
+		turn = 2 * (Math.max(fullMoves, 1) - 1) + ((currentPlayer == Color.WHITE) ? 1 : 2);
+		
+		//peões fora da casa inicial e reis e torres sem direito de roque já se moveram
+		for(Piece piece : piecesOnTheBoard) {
+			ChessPiece chessPiece = (ChessPiece) piece;
+			
+			if(chessPiece.getType() == PieceType.PAWN) {
+				int startRow = (chessPiece.getColor() == Color.WHITE) ? 6 : 1;
+				chessPiece.setMoveCount(chessPiece.getPosition().getRow() == startRow ? 0 : 1);
+			} else if(chessPiece.getType() == PieceType.KING || chessPiece.getType() == PieceType.ROOK) {
+				chessPiece.setMoveCount(1);
+			}
+		}
+		
+		setCastlingRight((rights & WHITE_KING_SIDE) != 0, 7, 7);
+		setCastlingRight((rights & WHITE_QUEEN_SIDE) != 0, 7, 0);
+		setCastlingRight((rights & BLACK_KING_SIDE) != 0, 0, 7);
+		setCastlingRight((rights & BLACK_QUEEN_SIDE) != 0, 0, 0);
+		
+		if(enPassantColumn >= 0) {
+			ChessPiece pawn = board.pieceAt(BitBoard.square((currentPlayer == Color.WHITE) ? 3 : 4, enPassantColumn));
+			
+			if(pawn != null && pawn.getType() == PieceType.PAWN && pawn.getColor() != currentPlayer) {
+				enPassantVulnerable = pawn;
+			}
+		}
+		
+		attackMap.refresh();
+		check = testCheck(currentPlayer);
+		boolean anyLegalMove = moveGenerator.hasLegalMoves(currentPlayer);
+		checkMate = check && !anyLegalMove;
+		stalemate = !check && !anyLegalMove;
+	}
+	
+	public String toFen() {
+		StringBuilder fen = new StringBuilder(90);
+		
+		for(int row = 0; row < BitBoard.SIZE; row++) {
+			int empty = 0;
+			
+			for(int column = 0; column < BitBoard.SIZE; column++) {
+				ChessPiece piece = board.pieceAt(BitBoard.square(row, column));
+				
+				if(piece == null) {
+					empty++;
+					continue;
+				}
+				
+				if(empty > 0) {
+					fen.append(empty);
+					empty = 0;
+				}
+				
+				fen.append(FEN_PIECES.charAt(((piece.getColor() == Color.WHITE) ? TYPES.length : 0) + piece.getType().ordinal()));
+			}
+			
+			if(empty > 0) {
+				fen.append(empty);
+			}
+			
+			if(row < BitBoard.SIZE - 1) {
+				fen.append('/');
+			}
+		}
+		
+		fen.append(' ').append((sideToMove == Color.WHITE) ? 'w' : 'b').append(' ');
+		
+		int rights = getCastlingRights();
+		if(rights == 0) {
+			fen.append('-');
+		} else {
+			if((rights & WHITE_KING_SIDE) != 0) fen.append('K');
+			if((rights & WHITE_QUEEN_SIDE) != 0) fen.append('Q');
+			if((rights & BLACK_KING_SIDE) != 0) fen.append('k');
+			if((rights & BLACK_QUEEN_SIDE) != 0) fen.append('q');
+		}
+		
+		fen.append(' ');
+		if(enPassantVulnerable != null && enPassantVulnerable.getPosition() != null) {
+			Position position = enPassantVulnerable.getPosition();
+			int row = position.getRow() + ((enPassantVulnerable.getColor() == Color.WHITE) ? 1 : -1);
+			fen.append((char) ('a' + position.getColumn())).append(BitBoard.SIZE - row);
+		} else {
+			fen.append('-');
+		}
+		
+		//no fim de jogo turn ainda é o do último lance
+		int sideTurn = (sideToMove == currentPlayer) ? turn : turn + 1;
+		fen.append(' ').append(halfMoveClock).append(' ').append((sideTurn + 1) / 2);
+		return fen.toString();
+	}
+	
+	//cópia independente do tabuleiro e das peças, sem o histórico de unmakeMove
+	public ChessMatch copy() {
+		return new ChessMatch(this);
+	}
+	
+	private ChessMatch(ChessMatch other) {
+		board = new BitBoard();
+		attackMap = new AttackMap(board);
+		moveGenerator = new MoveGenerator(this, board, attackMap);
+		moveGeneration = other.moveGeneration;
+		turn = other.turn;
+		halfMoveClock = other.halfMoveClock;
+		currentPlayer = other.currentPlayer;
+		sideToMove = other.sideToMove;
+		check = other.check;
+		checkMate = other.checkMate;
+		stalemate = other.stalemate;
+		statusStale = other.statusStale;
+		
+		for(Piece piece : other.piecesOnTheBoard) {
+			ChessPiece original = (ChessPiece) piece;
+			ChessPiece copy = newPiece(original.getType(), original.getColor());
+			copy.setMoveCount(original.getMoveCount());
+			board.placePiece(copy, board.position(BitBoard.square(original.getPosition())));
+			piecesOnTheBoard.add(copy);
+			
+			if(original == other.enPassantVulnerable) {
+				enPassantVulnerable = copy;
+			}
+			
+			if(original == other.promoted) {
+				promoted = copy;
+			}
+		}
+		
+		for(Piece piece : other.capturedPieces) {
+			ChessPiece original = (ChessPiece) piece;
+			capturedPieces.add(newPiece(original.getType(), original.getColor()));
+		}
+		
+		attackMap.refresh();
+	}
+	
+	public MatchSnapshot snapshot() {
+		MatchSnapshot snapshot = new MatchSnapshot();
+		snapshot(snapshot);
+		return snapshot;
+	}
+	
+	//grava o estado num snapshot já existente, sem criar objetos
+	public void snapshot(MatchSnapshot snapshot) {
+		updateStatus();
+		
+		for(int square = 0; square < snapshot.pieces.length; square++) {
+			ChessPiece piece = board.pieceAt(square);
+			snapshot.pieces[square] = (byte) ((piece == null) ? MatchSnapshot.EMPTY : code(piece));
+			snapshot.moveCounts[square] = (piece == null) ? 0 : piece.getMoveCount();
+		}
+		
+		snapshot.capturedCount = capturedPieces.size();
+		snapshot.ensureCaptured(capturedPieces.size());
+		for(int i = 0; i < capturedPieces.size(); i++) {
+			snapshot.captured[i] = (byte) code((ChessPiece) capturedPieces.get(i));
+		}
+		
+		snapshot.turn = turn;
+		snapshot.halfMoveClock = halfMoveClock;
+		snapshot.currentPlayer = currentPlayer.ordinal();
+		snapshot.sideToMove = sideToMove.ordinal();
+		snapshot.enPassantSquare = (enPassantVulnerable == null || enPassantVulnerable.getPosition() == null) ? MatchSnapshot.EMPTY : BitBoard.square(enPassantVulnerable.getPosition());
+		snapshot.promotedSquare = (promoted == null || promoted.getPosition() == null) ? MatchSnapshot.EMPTY : BitBoard.square(promoted.getPosition());
+		snapshot.check = check;
+		snapshot.checkMate = checkMate;
+		snapshot.stalemate = stalemate;
+	}
+	
+	//volta ao estado do snapshot reaproveitando as peças deste ChessMatch; o histórico de unmakeMove é descartado
+	public void restore(MatchSnapshot snapshot) {
+		clear();
+		
+		for(int square = 0; square < snapshot.pieces.length; square++) {
+			int code = snapshot.pieces[square];
+			
+			if(code == MatchSnapshot.EMPTY) {
+				continue;
+			}
+			
+			ChessPiece piece = obtainPiece(TYPES[code % TYPES.length], COLORS[code / TYPES.length]);
+			piece.setMoveCount(snapshot.moveCounts[square]);
+			board.placePiece(piece, board.position(square));
+			piecesOnTheBoard.add(piece);
+		}
+		
+		for(int i = 0; i < snapshot.capturedCount; i++) {
+			int code = snapshot.captured[i];
+			capturedPieces.add(obtainPiece(TYPES[code % TYPES.length], COLORS[code / TYPES.length]));
+		}
+		
+		turn = snapshot.turn;
+		halfMoveClock = snapshot.halfMoveClock;
+		currentPlayer = COLORS[snapshot.currentPlayer];
+		sideToMove = COLORS[snapshot.sideToMove];
+		enPassantVulnerable = (snapshot.enPassantSquare == MatchSnapshot.EMPTY) ? null : board.pieceAt(snapshot.enPassantSquare);
+		promoted = (snapshot.promotedSquare == MatchSnapshot.EMPTY) ? null : board.pieceAt(snapshot.promotedSquare);
+		check = snapshot.check;
+		checkMate = snapshot.checkMate;
+		stalemate = snapshot.stalemate;
+		attackMap.refresh();
+	}
+	
+	public int getHalfMoveClock() {
+		return halfMoveClock;
 	}
 	
 	public int getTurn() {
 		return turn;
 	}
 	
+	//jogador mostrado pela interface: no fim de jogo é quem deu o mate ou afogou
 	public Color getCurrentPlayer() {
 		return currentPlayer;
 	}
 	
+	//quem tem o lance na posição, o mesmo de toFen e getZobristKey
+	public Color getSideToMove() {
+		return sideToMove;
+	}
+	
 	public boolean getCheck() {
+		updateStatus();
 		return check;
 	}
 	
 	public boolean getCheckMate() {
+		updateStatus();
 		return checkMate;
 	}
 	
+	public boolean getStalemate() {
+		updateStatus();
+		return stalemate;
+	}
+	
 	public ChessPiece getEnPassantVulnerable() {
 		return enPassantVulnerable;
 	}
@@ -58,6 +418,44 @@ public class ChessMatch {
 		return promoted;
 	}
 	
+	public long getZobristKey() {
+		long key = board.getZobristKey() ^ Zobrist.castling(getCastlingRights());
+		
+		if(sideToMove == Color.BLACK) {
+			key ^= Zobrist.blackToMove();
+		}
+		
+		if(enPassantVulnerable != null && enPassantVulnerable.getPosition() != null) {
+			key ^= Zobrist.enPassant(enPassantVulnerable.getPosition().getColumn());
+		}
+		
+		return key;
+	}
+	
+	//direitos de roque derivados do moveCount do rei e das torres
+	public int getCastlingRights() {
+		int rights = 0;
+		
+		if(castlingRight(Color.WHITE, 7, 7)) rights |= WHITE_KING_SIDE;
+		if(castlingRight(Color.WHITE, 7, 0)) rights |= WHITE_QUEEN_SIDE;
+		if(castlingRight(Color.BLACK, 0, 7)) rights |= BLACK_KING_SIDE;
+		if(castlingRight(Color.BLACK, 0, 0)) rights |= BLACK_QUEEN_SIDE;
+		
+		return rights;
+	}
+	
+	public MoveGeneration getMoveGeneration() {
+		return moveGeneration;
+	}
+	
+	public void setMoveGeneration(MoveGeneration moveGeneration) {
+		this.moveGeneration = moveGeneration;
+	}
+	
+	public boolean isSquareAttacked(ChessPosition position, Color color) {
+		return attackMap.isSquareAttacked(BitBoard.square(position.toPosition()), color);
+	}
+	
 	public ChessPiece[][] getPieces() {
 		ChessPiece[][] pieces = new ChessPiece[board.getRows()][board.getColumns()];
 		
@@ -70,10 +468,86 @@ public class ChessMatch {
 		return pieces;
 	}
 	
+	public ChessPiece pieceAt(int square) {
+		return board.pieceAt(square);
+	}
+	
+	public long pieces(Color color, PieceType type) {
+		return board.getPieces(color, type);
+	}
+	
+	public long getOccupied() {
+		return board.getOccupied();
+	}
+	
+	//peças da cor que atacam a casa com a ocupação dada, contando raios que atravessam casas esvaziadas
+	public long attackersTo(int square, Color color, long occupied) {
+		return attackMap.attackersTo(square, color, occupied) & occupied;
+	}
+	
+	public long getPawnKey() {
+		return board.getPawnKey();
+	}
+	
+	//de PieceSquareTables.MAX_PHASE com todas as peças até 0 só com reis e peões
+	public int getPhase() {
+		return board.getPhase();
+	}
+	
+	//material e tabelas de casas, já atualizados a cada lance; positivo é bom para o jogador da vez
+	public int evaluate() {
+		int evaluation = board.getEvaluation();
+		return (sideToMove == Color.WHITE) ? evaluation : -evaluation;
+	}
+	
+	//xeque do jogador da vez na posição atual, também depois de makeMove(int)
+	public boolean inCheck() {
+		return testCheck(sideToMove);
+	}
+	
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
+		return MoveGenerator.toMatrix(possibleMovesMask(sourcePosition));
+	}
+	
+	public long possibleMovesMask(ChessPosition sourcePosition) {
+		Position position = sourcePosition.toPosition();
+		validateSourcePosition(position);
+		return targets(board.piece(position));
+	}
+	
+	public int generateMoves(int[] moves) {
+		if(moveGeneration == MoveGeneration.ATTACK_TABLES) {
+			return moveGenerator.generateMoves(sideToMove, moves);
+		}
+		
+		int count = 0;
+		long pieces = board.getOccupied(sideToMove);
+		
+		while(pieces != 0) {
+			ChessPiece piece = board.pieceAt(Long.numberOfTrailingZeros(pieces));
+			count = moveGenerator.addMoves(piece, targets(piece), moves, count);
+			pieces &= pieces - 1;
+		}
+		
+		return count;
+	}
+	
+	public boolean[][] legalMoves(ChessPosition sourcePosition) {
+		return MoveGenerator.toMatrix(legalMovesMask(sourcePosition));
+	}
+	
+	public long legalMovesMask(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPosition();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMoves();
+		return moveGenerator.legalTargets((ChessPiece) board.piece(position));
+	}
+	
+	public int generateLegalMoves(int[] moves) {
+		return moveGenerator.generateLegalMoves(sideToMove, moves);
+	}
+	
+	public int generateLegalCaptures(int[] moves) {
+		return moveGenerator.generateLegalCaptures(sideToMove, moves);
 	}
 	
 	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
@@ -82,42 +556,125 @@ public class ChessMatch {
 		
 		validateSourcePosition(source);
 		validateTargetPosition(source, target);
+		pushHistory(Move.encode(BitBoard.square(source), BitBoard.square(target), Move.QUIET));
 		Piece capturedPiece = makeMove(source, target);
-		
-		if(testCheck(currentPlayer) || board.piece(target) instanceof King && target.getColumn() == source.getColumn() + 2 && testCheckRook(((ChessPiece) board.piece(target)).getColor(), new Position(source.getRow(), source.getColumn() + 1)) || board.piece(target) instanceof King && target.getColumn() == source.getColumn() - 2 && testCheckRook(((ChessPiece) board.piece(target)).getColor(), new Position(source.getRow(), source.getColumn() - 1))) {
-			undoMove(source, target, capturedPiece);
-			throw new ChessException("Você não pode se colocar em cheque");
-		}
+		historyCaptured[ply] = capturedPiece;
 		
 		ChessPiece movedPiece = (ChessPiece) board.piece(target);
+		halfMoveClock = (movedPiece instanceof Pawn || capturedPiece != null) ? 0 : halfMoveClock + 1;
 		
 		//promotion
 		promoted = null;
 		if(movedPiece instanceof Pawn) {
 			if((movedPiece.getColor() == Color.WHITE && target.getRow() == 0) || (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)) {
-				promoted = (ChessPiece) board.piece(target);
-				promoted = replacePromotedPiece("Q");
+				//o peão fica na pilha, então desfazer também desfaz a troca feita por replacePromotedPiece
+				historyPawns[ply] = movedPiece;
+				promoted = movedPiece;
+				promoted = promote("Q");
 			}
 		}
 		
-		check = testCheck((opponent(currentPlayer))) ? true : false;
-		
-		if(testCheckMate(opponent(currentPlayer))) {
-			checkMate = true;
-		} else {
-			nextTurn();
-		}
-		
 		//en passant
-		if(movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2) || target.getRow() == source.getRow() + 2) {
+		if(movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
 			enPassantVulnerable = movedPiece;
 		} else {
 			enPassantVulnerable = null;
 		}
-
+		
+		ply++;
+		testGameOver(movedPiece.getColor());
+		
 		return (ChessPiece) capturedPiece;
 	}
 	
+	//aplica um lance vindo de generateLegalMoves, sem validação, para busca e perft
+	public void makeMove(int move) {
+		Position source = board.position(Move.from(move));
+		Position target = board.position(Move.to(move));
+		
+		pushHistory(move);
+		historyCaptured[ply] = makeMove(source, target);
+		
+		ChessPiece movedPiece = (ChessPiece) board.piece(target);
+		halfMoveClock = (movedPiece.getType() == PieceType.PAWN || historyCaptured[ply] != null) ? 0 : halfMoveClock + 1;
+		
+		if(Move.isPromotion(move)) {
+			historyPawns[ply] = movedPiece;
+			board.removePiece(target);
+			piecesOnTheBoard.remove(movedPiece);
+			
+			movedPiece = newPiece(Move.promotion(move), movedPiece.getColor());
+			board.placePiece(movedPiece, target);
+			piecesOnTheBoard.add(movedPiece);
+			attackMap.update(1L << Move.to(move));
+		}
+		
+		enPassantVulnerable = (Move.flags(move) == Move.DOUBLE_PAWN_PUSH) ? movedPiece : null;
+		promoted = null;
+		statusStale = true;
+		ply++;
+		nextTurn();
+	}
+	
+	//desfaz o último lance da pilha, de makeMove(int) ou de performChessMove, sem revalidar nada
+	public void unmakeMove() {
+		if(ply == 0) {
+			throw new IllegalStateException("Não há lance para desfazer");
+		}
+		
+		ply--;
+		
+		int move = historyMoves[ply];
+		Position source = board.position(Move.from(move));
+		Position target = board.position(Move.to(move));
+		
+		if(historyPawns[ply] != null) {
+			Piece piece = board.removePiece(target);
+			piecesOnTheBoard.remove(piece);
+			board.placePiece(historyPawns[ply], target);
+			piecesOnTheBoard.add(historyPawns[ply]);
+			historyPawns[ply] = null;
+		}
+		
+		enPassantVulnerable = historyEnPassant[ply];
+		halfMoveClock = historyHalfMoves[ply];
+		undoMove(source, target, historyCaptured[ply]);
+		
+		int flags = historyFlags[ply];
+		turn = historyTurns[ply];
+		currentPlayer = COLORS[flags & PLAYER_MASK];
+		sideToMove = COLORS[(flags >> SIDE_TO_MOVE_SHIFT) & PLAYER_MASK];
+		check = (flags & CHECK) != 0;
+		checkMate = (flags & CHECK_MATE) != 0;
+		stalemate = (flags & STALEMATE) != 0;
+		statusStale = (flags & STATUS_STALE) != 0;
+		promoted = historyPromoted[ply];
+		
+		historyCaptured[ply] = null;
+		historyEnPassant[ply] = null;
+		historyPromoted[ply] = null;
+	}
+	
+	//quantos lances podem ser desfeitos com unmakeMove
+	public int getPly() {
+		return ply;
+	}
+	
+	//guarda o estado anterior ao lance no topo da pilha; quem chama preenche historyCaptured e incrementa ply
+	private void pushHistory(int move) {
+		if(ply == historyMoves.length) {
+			growHistory();
+		}
+		
+		historyMoves[ply] = move;
+		historyEnPassant[ply] = enPassantVulnerable;
+		historyPawns[ply] = null;
+		historyPromoted[ply] = promoted;
+		historyHalfMoves[ply] = halfMoveClock;
+		historyTurns[ply] = turn;
+		historyFlags[ply] = currentPlayer.ordinal() | (sideToMove.ordinal() << SIDE_TO_MOVE_SHIFT) | (check ? CHECK : 0) | (checkMate ? CHECK_MATE : 0) | (stalemate ? STALEMATE : 0) | (statusStale ? STATUS_STALE : 0);
+	}
+	
 	public ChessPiece replacePromotedPiece(String type) {
 		if(promoted == null) {
 			throw new IllegalStateException("Não há peça para ser promovida");
@@ -127,6 +684,13 @@ public class ChessMatch {
 			return promoted;
 		}
 		
+		ChessPiece newPiece = promote(type);
+		testGameOver(newPiece.getColor());
+		
+		return newPiece;
+	}
+	
+	private ChessPiece promote(String type) {
 		Position position = promoted.getChessPosition().toPosition();
 		Piece piece = board.removePiece(position);
 		piecesOnTheBoard.remove(piece);
@@ -134,12 +698,39 @@ public class ChessMatch {
 		ChessPiece newPiece = newPiece(type, promoted.getColor());
 		board.placePiece(newPiece, position);
 		piecesOnTheBoard.add(newPiece);
-		
-		check = testCheck(currentPlayer) ? true : false;
+		attackMap.update(1L << BitBoard.square(position));
 		
 		return newPiece;
 	}
 	
+	private ChessPiece newPiece(PieceType type, Color color) {
+		switch(type) {
+		case PAWN:
+			return new Pawn(board, color, this);
+		case KNIGHT:
+			return new Knight(board, color);
+		case BISHOP:
+			return new Bishop(board, color);
+		case ROOK:
+			return new Rook(board, color);
+		case QUEEN:
+			return new Queen(board, color);
+		default:
+			return new King(board, color, this);
+		}
+	}
+	
+	private void growHistory() {
+		historyMoves = Arrays.copyOf(historyMoves, historyMoves.length * 2);
+		historyCaptured = Arrays.copyOf(historyCaptured, historyCaptured.length * 2);
+		historyEnPassant = Arrays.copyOf(historyEnPassant, historyEnPassant.length * 2);
+		historyPawns = Arrays.copyOf(historyPawns, historyPawns.length * 2);
+		historyPromoted = Arrays.copyOf(historyPromoted, historyPromoted.length * 2);
+		historyHalfMoves = Arrays.copyOf(historyHalfMoves, historyHalfMoves.length * 2);
+		historyTurns = Arrays.copyOf(historyTurns, historyTurns.length * 2);
+		historyFlags = Arrays.copyOf(historyFlags, historyFlags.length * 2);
+	}
+	
 	private ChessPiece newPiece(String type, Color color) {
 		if(type.equals("R")) return new Rook(board, color);
 		if(type.equals("N")) return new Knight(board, color);
@@ -152,6 +743,7 @@ public class ChessMatch {
 		piece.increaseMoveCount();
 		Piece capturedPiece = board.removePiece(target);
 		board.placePiece(piece, target);
+		long changed = (1L << BitBoard.square(source)) | (1L << BitBoard.square(target));
 		
 		if(capturedPiece != null) {
 			piecesOnTheBoard.remove(capturedPiece);
@@ -160,20 +752,22 @@ public class ChessMatch {
 		
 		//rook direito
 		if(piece instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
+			Position sourceT = board.position(source.getRow(), source.getColumn() + 3);
+			Position targetT = board.position(source.getRow(), source.getColumn() + 1);
 			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
 			board.placePiece(rook, targetT);
 			rook.increaseMoveCount();
+			changed |= (1L << BitBoard.square(sourceT)) | (1L << BitBoard.square(targetT));
 		}
 		
 		//rook esquerdo
 		if(piece instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
+			Position sourceT = board.position(source.getRow(), source.getColumn() - 4);
+			Position targetT = board.position(source.getRow(), source.getColumn() - 1);
 			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
 			board.placePiece(rook, targetT);
 			rook.increaseMoveCount();
+			changed |= (1L << BitBoard.square(sourceT)) | (1L << BitBoard.square(targetT));
 		}
 		
 		//en passant
@@ -182,17 +776,19 @@ public class ChessMatch {
 				Position pawnPosition;
 				
 				if(piece.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
+					pawnPosition = board.position(target.getRow() + 1, target.getColumn());
 				} else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
+					pawnPosition = board.position(target.getRow() - 1, target.getColumn());
 				}
 				
 				capturedPiece = board.removePiece(pawnPosition);
 				capturedPieces.add(capturedPiece);
 				piecesOnTheBoard.remove(capturedPiece);
+				changed |= 1L << BitBoard.square(pawnPosition);
 			}
 		}
 		
+		attackMap.update(changed);
 		return capturedPiece;
 	}
 	
@@ -200,6 +796,7 @@ public class ChessMatch {
 		ChessPiece piece = (ChessPiece) board.removePiece(target);
 		piece.decreaseMoveCount();
 		board.placePiece(piece, source);
+		long changed = (1L << BitBoard.square(source)) | (1L << BitBoard.square(target));
 		
 		if(capturedPiece != null) {
 			board.placePiece(capturedPiece, target);
@@ -209,37 +806,37 @@ public class ChessMatch {
 		
 		//rook direito
 		if(piece instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
+			Position sourceT = board.position(source.getRow(), source.getColumn() + 3);
+			Position targetT = board.position(source.getRow(), source.getColumn() + 1);
 			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
 			board.placePiece(rook, sourceT);
 			rook.decreaseMoveCount();
+			changed |= (1L << BitBoard.square(sourceT)) | (1L << BitBoard.square(targetT));
 		}
 		
 		//rook esquerdo
 		if(piece instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
+			Position sourceT = board.position(source.getRow(), source.getColumn() - 4);
+			Position targetT = board.position(source.getRow(), source.getColumn() - 1);
 			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
 			board.placePiece(rook, sourceT);
 			rook.decreaseMoveCount();
+			changed |= (1L << BitBoard.square(sourceT)) | (1L << BitBoard.square(targetT));
 		}
 		
-		//en passant
+		//en passant: o peão capturado volta para o lado da origem
 		if(piece instanceof Pawn) {
-			if(source.getColumn() != target.getColumn() && capturedPiece == null) {
+			int enPassantRow = (piece.getColor() == Color.WHITE) ? 2 : 5;
+			
+			if(source.getColumn() != target.getColumn() && target.getRow() == enPassantRow && capturedPiece != null && capturedPiece == enPassantVulnerable) {
 				ChessPiece pawn = (ChessPiece) board.removePiece(target);
-				Position pawnPosition;
-				
-				if(piece.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
-				} else {
-					pawnPosition = new Position(4, target.getColumn());
-				}
-				
+				Position pawnPosition = board.position(source.getRow(), target.getColumn());
 				board.placePiece(pawn, pawnPosition);
+				changed |= 1L << BitBoard.square(pawnPosition);
 			}
 		}
+		
+		attackMap.update(changed);
 	}
 	
 	private void validateSourcePosition(Position position) {
@@ -247,24 +844,74 @@ public class ChessMatch {
 			throw new ChessException("Não existe peça na posição de origem");
 		}
 		
-		if(currentPlayer != ((ChessPiece) board.piece(position)).getColor()) {
+		if(sideToMove != ((ChessPiece) board.piece(position)).getColor()) {
 			throw new ChessException("A peça escolhida não é sua");
 		}
 		
-		if(!board.piece(position).isThereAnyPossibleMove()) {
+		if(moveGenerator.legalTargets((ChessPiece) board.piece(position)) == 0) {
 			throw new ChessException("Não existem movimentos possíveis para a peça escolhida");
 		}
 	}
 	
 	private void validateTargetPosition(Position source, Position target) {
-		if(!board.piece(source).possibleMove(target)) {
+		ChessPiece piece = (ChessPiece) board.piece(source);
+		long square = 1L << BitBoard.square(target);
+		
+		if((targets(piece) & square) == 0) {
 			throw new ChessException("A peça escolhida não pode se mover para a posição de destino");
 		}
+		
+		if((moveGenerator.legalTargets(piece) & square) == 0) {
+			throw new ChessException("Você não pode se colocar em cheque");
+		}
+	}
+	
+	long targets(Piece piece) {
+		if(moveGeneration == MoveGeneration.PIECE_SCAN) {
+			return MoveGenerator.toMask(piece.possibleMoves());
+		}
+		
+		return moveGenerator.targets((ChessPiece) piece);
+	}
+	
+	//atualiza cheque, cheque mate e afogamento depois de um lance das peças de color
+	private void testGameOver(Color color) {
+		Color opponent = opponent(color);
+		sideToMove = opponent;
+		check = testCheck(opponent);
+		boolean anyLegalMove = moveGenerator.hasLegalMoves(opponent);
+		checkMate = check && !anyLegalMove;
+		stalemate = !check && !anyLegalMove;
+		statusStale = false;
+		
+		if(checkMate || stalemate) {
+			//a vez continua com quem fez o último lance
+			if(currentPlayer != color) {
+				turn--;
+				currentPlayer = color;
+			}
+		} else if(currentPlayer == color) {
+			nextTurn();
+		}
+	}
+	
+	//xeque, mate e afogamento do jogador da vez, se algum makeMove(int) os deixou desatualizados
+	private void updateStatus() {
+		if(!statusStale) {
+			return;
+		}
+		
+		statusStale = false;
+		check = testCheck(sideToMove);
+		boolean anyLegalMove = moveGenerator.hasLegalMoves(sideToMove);
+		checkMate = check && !anyLegalMove;
+		stalemate = !check && !anyLegalMove;
 	}
 	
 	private void nextTurn() {
 		turn++;
 		currentPlayer = (currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		sideToMove = currentPlayer;
 	}
 	
 	private Color opponent(Color color) {
@@ -272,75 +919,114 @@ public class ChessMatch {
 	}
 	
 	private ChessPiece king(Color color) {
-		List<Piece> pieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color).collect(Collectors.toList());
+		long king = board.getPieces(color, PieceType.KING);
 		
-		for(Piece piece : pieces) {
-			if(piece instanceof King) {
-				return (ChessPiece) piece;
-			}
+		if(king == 0) {
+			throw new IllegalStateException("Não existe o rei da cor " + (color == Color.WHITE ? "branca" : "preta") + " no tabuleiro");
 		}
 		
-		throw new IllegalStateException("Não existe o rei da cor " + (color == Color.WHITE ? "branca" : "preta") + " no tabuleiro");
+		return board.pieceAt(Long.numberOfTrailingZeros(king));
+	}
+	
+	private boolean castlingRight(Color color, int row, int rookColumn) {
+		ChessPiece king = board.pieceAt(BitBoard.square(row, 4));
+		ChessPiece rook = board.pieceAt(BitBoard.square(row, rookColumn));
+		
+		return king != null && king.getType() == PieceType.KING && king.getColor() == color && king.getMoveCount() == 0
+			&& rook != null && rook.getType() == PieceType.ROOK && rook.getColor() == color && rook.getMoveCount() == 0;
 	}
 	
 	private boolean testCheck(Color color) {
-		List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == opponent(color)).collect(Collectors.toList());
-		Position kingPosition = king(color).getChessPosition().toPosition();
+		return attackMap.isAttacked(BitBoard.square(king(color).getPosition()), opponent(color));
+	}
+	
+	private void clear() {
+		long occupied = board.getOccupied();
 		
-		for(Piece piece : opponentPieces) {
-			boolean[][] moves = piece.possibleMoves();
-			
-			if(moves[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
-			}
+		while(occupied != 0) {
+			releasePiece((ChessPiece) board.removePiece(board.position(Long.numberOfTrailingZeros(occupied))));
+			occupied &= occupied - 1;
 		}
 		
-		return false;
+		for(int i = 0; i < ply; i++) {
+			historyCaptured[i] = null;
+			historyEnPassant[i] = null;
+			historyPawns[i] = null;
+			historyPromoted[i] = null;
+		}
+		
+		//as capturadas também voltam para a reserva
+		for(Piece piece : capturedPieces) {
+			releasePiece((ChessPiece) piece);
+		}
+		
+		piecesOnTheBoard.clear();
+		capturedPieces.clear();
+		ply = 0;
+		halfMoveClock = 0;
+		enPassantVulnerable = null;
+		promoted = null;
+		check = false;
+		checkMate = false;
+		stalemate = false;
+		statusStale = false;
+	}
+	
+	private static int code(ChessPiece piece) {
+		return piece.getColor().ordinal() * TYPES.length + piece.getType().ordinal();
 	}
 	
-	private boolean testCheckRook(Color color, Position position) {
-		List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == opponent(color)).collect(Collectors.toList());
+	private ChessPiece obtainPiece(PieceType type, Color color) {
+		int index = color.ordinal() * TYPES.length + type.ordinal();
 		
-		for(Piece piece : opponentPieces) {
-			boolean[][] moves = piece.possibleMoves();
-			
-			if(moves[position.getRow()][position.getColumn()]) {
-				return true;
-			}
+		if(spareCounts[index] == 0) {
+			return newPiece(type, color);
 		}
 		
-		return false;
+		ChessPiece piece = sparePieces[index][--spareCounts[index]];
+		sparePieces[index][spareCounts[index]] = null;
+		piece.setMoveCount(0);
+		return piece;
+	}
+	
+	private void releasePiece(ChessPiece piece) {
+		int index = code(piece);
+		
+		if(spareCounts[index] < sparePieces[index].length) {
+			sparePieces[index][spareCounts[index]++] = piece;
+		}
 	}
 	
-	private boolean testCheckMate(Color color) {
-		if(!testCheck(color)) {
-			return false;
+	private static int skipSpaces(String fen, int i) {
+		while(i < fen.length() && fen.charAt(i) == ' ') {
+			i++;
 		}
 		
-		List<Piece> pieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color).collect(Collectors.toList());
+		return i;
+	}
+	
+	private static int digit(String fen, int i) {
+		char c = fen.charAt(i);
 		
-		for(Piece piece : pieces) {
-			boolean[][] moves = piece.possibleMoves();
-			
-			for(int i = 0; i < board.getRows(); i++) {
-				for(int j = 0; j < board.getRows(); j++) {
-					if(moves[i][j]) {
-						Position source = ((ChessPiece) piece).getChessPosition().toPosition();
-						Position target = new Position(i, j);
-						
-						Piece capturedPiece = makeMove(source, target);
-						boolean testCheck = testCheck(color);
-						undoMove(source, target, capturedPiece);
-						
-						if(!testCheck) {
-							return false;
-						}
-					}
-				}
-			}
+		if(c < '0' || c > '9') {
+			throw invalidFen(fen);
 		}
 		
-		return true;
+		return c - '0';
+	}
+	
+	private static ChessException invalidFen(String fen) {
+		return new ChessException("FEN inválida: " + fen);
+	}
+	
+	private void setCastlingRight(boolean right, int row, int rookColumn) {
+		ChessPiece king = board.pieceAt(BitBoard.square(row, 4));
+		ChessPiece rook = board.pieceAt(BitBoard.square(row, rookColumn));
+		
+		if(right && king != null && rook != null) {
+			king.setMoveCount(0);
+			rook.setMoveCount(0);
+		}
 	}
 	
 	private void placeNewPiece(int row, char column, ChessPiece piece) {
@@ -18,6 +18,8 @@ public abstract class ChessPiece extends Piece {
 		return color;
 	}
 	
+	public abstract PieceType getType();
+	
 	public int getMoveCount() {
 		return moveCount;
 	}
@@ -30,6 +32,18 @@ public abstract class ChessPiece extends Piece {
 		moveCount--;
 	}
 	
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+	
+	Position getPosition() {
+		return position;
+	}
+	
+	void setPosition(Position position) {
+		this.position = position;
+	}
+	
 	public ChessPosition getChessPosition() {
 		return ChessPosition.fromPosition(position);
 	}
@@ -0,0 +1,90 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//estado completo de um ChessMatch em arrays primitivos, preenchido por snapshot e lido por restore
+public class MatchSnapshot {
+	
+	static final int EMPTY = -1;
+	
+	//cor * 6 + tipo da peça em cada casa, e quantas vezes ela já se moveu
+	byte[] pieces = new byte[BitBoard.SIZE * BitBoard.SIZE];
+	int[] moveCounts = new int[BitBoard.SIZE * BitBoard.SIZE];
+	
+	//peças capturadas na ordem de captura; cresce se uma posição com promoções passar de 32
+	byte[] captured = new byte[32];
+	int capturedCount;
+	
+	int turn;
+	int halfMoveClock;
+	int currentPlayer;
+	int sideToMove;
+	int enPassantSquare = EMPTY;
+	int promotedSquare = EMPTY;
+	boolean check;
+	boolean checkMate;
+	boolean stalemate;
+	
+	public MatchSnapshot() {
+		Arrays.fill(pieces, (byte) EMPTY);
+	}
+	
+	public int getTurn() {
+		return turn;
+	}
+	
+	public Color getCurrentPlayer() {
+		return Color.values()[currentPlayer];
+	}
+	
+	//64 casas, 64 contadores de movimento, capturadas e o restante em inteiros, sem cabeçalho
+	public void write(ByteBuffer buffer) {
+		buffer.put(pieces);
+		for(int moveCount : moveCounts) {
+			buffer.putShort((short) moveCount);
+		}
+		
+		buffer.putShort((short) capturedCount);
+		buffer.put(captured, 0, capturedCount);
+		buffer.putInt(turn);
+		buffer.putInt(halfMoveClock);
+		buffer.put((byte) currentPlayer);
+		buffer.put((byte) sideToMove);
+		buffer.put((byte) enPassantSquare);
+		buffer.put((byte) promotedSquare);
+		buffer.put((byte) ((check ? 1 : 0) | (checkMate ? 2 : 0) | (stalemate ? 4 : 0)));
+	}
+	
+	public void read(ByteBuffer buffer) {
+		buffer.get(pieces);
+		for(int square = 0; square < moveCounts.length; square++) {
+			moveCounts[square] = buffer.getShort();
+		}
+		
+		capturedCount = buffer.getShort() & 0xFFFF;
+		if(capturedCount > buffer.remaining()) {
+			throw new ChessException("Snapshot inválido: " + capturedCount + " peças capturadas");
+		}
+		
+		ensureCaptured(capturedCount);
+		buffer.get(captured, 0, capturedCount);
+		turn = buffer.getInt();
+		halfMoveClock = buffer.getInt();
+		currentPlayer = buffer.get();
+		sideToMove = buffer.get();
+		enPassantSquare = buffer.get();
+		promotedSquare = buffer.get();
+		
+		int flags = buffer.get();
+		check = (flags & 1) != 0;
+		checkMate = (flags & 2) != 0;
+		stalemate = (flags & 4) != 0;
+	}
+	
+	void ensureCaptured(int count) {
+		if(count > captured.length) {
+			captured = new byte[count];
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package chess;
+
+public class Move {
+	
+	//bits 0-5 origem, 6-11 destino, 12-15 tipo do movimento
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int KNIGHT_PROMOTION = 8;
+	public static final int BISHOP_PROMOTION = 9;
+	public static final int ROOK_PROMOTION = 10;
+	public static final int QUEEN_PROMOTION = 11;
+	
+	public static final int NONE = 0;
+	
+	private static final PieceType[] TYPES = PieceType.values();
+	
+	public static int encode(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+	
+	public static int from(int move) {
+		return move & 0x3F;
+	}
+	
+	public static int to(int move) {
+		return (move >>> 6) & 0x3F;
+	}
+	
+	public static int flags(int move) {
+		return (move >>> 12) & 0xF;
+	}
+	
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+	
+	public static boolean isPromotion(int move) {
+		return (flags(move) & KNIGHT_PROMOTION) != 0;
+	}
+	
+	//tipo da peça promovida, a partir do cavalo
+	public static PieceType promotion(int move) {
+		return TYPES[PieceType.KNIGHT.ordinal() + (flags(move) & 0x3)];
+	}
+	
+	public static String toString(int move) {
+		String s = square(from(move)) + square(to(move));
+		
+		if(isPromotion(move)) {
+			s += "nbrq".charAt(flags(move) & 0x3);
+		}
+		
+		return s;
+	}
+	
+	private static String square(int square) {
+		return "" + (char) ('a' + square % BitBoard.SIZE) + (BitBoard.SIZE - square / BitBoard.SIZE);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package chess;
+
+public enum MoveGeneration {
+	PIECE_SCAN,
+	ATTACK_TABLES;
+}
\ No newline at end of file
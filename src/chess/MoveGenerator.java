@@ -0,0 +1,370 @@
+package chess;
+
+public class MoveGenerator {
+	
+	public static final int MAX_MOVES = 256;
+	
+	//primeira e oitava fileiras, onde o peão promove
+	private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+	
+	private ChessMatch chessMatch;
+	private BitBoard board;
+	private AttackMap attackMap;
+	private int[] buffer = new int[MAX_MOVES];
+	
+	public MoveGenerator(ChessMatch chessMatch, BitBoard board, AttackMap attackMap) {
+		this.chessMatch = chessMatch;
+		this.board = board;
+		this.attackMap = attackMap;
+	}
+	
+	public long targets(ChessPiece piece) {
+		int square = BitBoard.square(piece.getPosition());
+		long own = board.getOccupied(piece.getColor());
+		long occupied = board.getOccupied();
+		
+		switch(piece.getType()) {
+		case PAWN:
+			return pawnTargets(piece, square, occupied);
+		case KNIGHT:
+			return Attacks.knight(square) & ~own;
+		case BISHOP:
+			return Attacks.bishop(square, occupied) & ~own;
+		case ROOK:
+			return Attacks.rook(square, occupied) & ~own;
+		case QUEEN:
+			return Attacks.queen(square, occupied) & ~own;
+		default:
+			return (Attacks.king(square) & ~own) | castlingTargets(piece, square, occupied, chessMatch.inCheck());
+		}
+	}
+	
+	//gera apenas lances legais, calculando cravadas e a mascara de fuga do cheque uma vez por posição
+	public int generateLegalMoves(Color color, int[] moves) {
+		return generateLegalMoves(color, moves, false);
+	}
+	
+	//só capturas, en passant e promoções, para a busca de quiescência
+	public int generateLegalCaptures(Color color, int[] moves) {
+		return generateLegalMoves(color, moves, true);
+	}
+	
+	private int generateLegalMoves(Color color, int[] moves, boolean capturesOnly) {
+		Color opponent = opponent(color);
+		long occupied = board.getOccupied();
+		long own = board.getOccupied(color);
+		int kingSquare = Long.numberOfTrailingZeros(board.getPieces(color, PieceType.KING));
+		long checkers = attackMap.attackersTo(kingSquare, opponent, occupied);
+		int count = 0;
+		
+		ChessPiece king = board.pieceAt(kingSquare);
+		long opponentPieces = board.getOccupied(opponent);
+		long safe = safeKingTargets(kingSquare, own, opponent, occupied);
+		
+		if(capturesOnly) {
+			safe &= opponentPieces;
+		} else if(checkers == 0) {
+			safe |= legalCastlingTargets(king, kingSquare, occupied, opponent);
+		}
+		
+		count = addMoves(king, safe, moves, count);
+		
+		//cheque duplo: só o rei pode se mover
+		if((checkers & (checkers - 1)) != 0) {
+			return count;
+		}
+		
+		long checkMask = (checkers == 0) ? -1L : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+		long pinned = pinned(color, kingSquare, occupied);
+		long pieces = own & ~(1L << kingSquare);
+		
+		while(pieces != 0) {
+			int square = Long.numberOfTrailingZeros(pieces);
+			ChessPiece piece = board.pieceAt(square);
+			long mask = -1L;
+			
+			if(capturesOnly) {
+				mask = (piece.getType() == PieceType.PAWN) ? opponentPieces | PROMOTION_RANKS : opponentPieces;
+			}
+			
+			count = addMoves(piece, pieceTargets(piece, square, kingSquare, occupied, checkers, checkMask, pinned, mask), moves, count);
+			pieces &= pieces - 1;
+		}
+		
+		return count;
+	}
+	
+	//destinos legais de uma peça só, com as mesmas cravadas e máscara de cheque, sem gerar os lances do lado todo
+	public long legalTargets(ChessPiece piece) {
+		Color color = piece.getColor();
+		Color opponent = opponent(color);
+		long occupied = board.getOccupied();
+		int square = BitBoard.square(piece.getPosition());
+		int kingSquare = Long.numberOfTrailingZeros(board.getPieces(color, PieceType.KING));
+		long checkers = attackMap.attackersTo(kingSquare, opponent, occupied);
+		
+		if(square == kingSquare) {
+			long safe = safeKingTargets(kingSquare, board.getOccupied(color), opponent, occupied);
+			return (checkers == 0) ? safe | legalCastlingTargets(piece, kingSquare, occupied, opponent) : safe;
+		}
+		
+		if((checkers & (checkers - 1)) != 0) {
+			return 0L;
+		}
+		
+		long checkMask = (checkers == 0) ? -1L : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+		return pieceTargets(piece, square, kingSquare, occupied, checkers, checkMask, pinned(color, kingSquare, occupied), -1L);
+	}
+	
+	public boolean hasLegalMoves(Color color) {
+		return generateLegalMoves(color, buffer) > 0;
+	}
+	
+	public int generateMoves(Color color, int[] moves) {
+		int count = 0;
+		long pieces = board.getOccupied(color);
+		
+		while(pieces != 0) {
+			ChessPiece piece = board.pieceAt(Long.numberOfTrailingZeros(pieces));
+			count = addMoves(piece, targets(piece), moves, count);
+			pieces &= pieces - 1;
+		}
+		
+		return count;
+	}
+	
+	//codifica os destinos da peça em moves a partir de count e retorna o novo total
+	public int addMoves(ChessPiece piece, long targets, int[] moves, int count) {
+		int from = BitBoard.square(piece.getPosition());
+		PieceType type = piece.getType();
+		long occupied = board.getOccupied();
+		
+		while(targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			int flags = ((occupied & (1L << to)) != 0) ? Move.CAPTURE : Move.QUIET;
+			
+			if(type == PieceType.PAWN) {
+				int row = to / BitBoard.SIZE;
+				
+				if(row == 0 || row == BitBoard.SIZE - 1) {
+					for(int promotion = Move.KNIGHT_PROMOTION; promotion <= Move.QUEEN_PROMOTION; promotion++) {
+						moves[count++] = Move.encode(from, to, promotion | flags);
+					}
+					
+					targets &= targets - 1;
+					continue;
+				}
+				
+				if(Math.abs(to - from) == 2 * BitBoard.SIZE) {
+					flags = Move.DOUBLE_PAWN_PUSH;
+				} else if(flags == Move.QUIET && (to - from) % BitBoard.SIZE != 0) {
+					flags = Move.EN_PASSANT;
+				}
+			} else if(type == PieceType.KING && Math.abs(to - from) == 2) {
+				flags = (to > from) ? Move.KING_CASTLE : Move.QUEEN_CASTLE;
+			}
+			
+			moves[count++] = Move.encode(from, to, flags);
+			targets &= targets - 1;
+		}
+		
+		return count;
+	}
+	
+	public static long toMask(boolean[][] moves) {
+		long targets = 0L;
+		
+		for(int i = 0; i < moves.length; i++) {
+			for(int j = 0; j < moves[i].length; j++) {
+				if(moves[i][j]) {
+					targets |= 1L << BitBoard.square(i, j);
+				}
+			}
+		}
+		
+		return targets;
+	}
+	
+	public static boolean[][] toMatrix(long targets) {
+		boolean[][] moves = new boolean[BitBoard.SIZE][BitBoard.SIZE];
+		
+		while(targets != 0) {
+			int square = Long.numberOfTrailingZeros(targets);
+			moves[square / BitBoard.SIZE][square % BitBoard.SIZE] = true;
+			targets &= targets - 1;
+		}
+		
+		return moves;
+	}
+	
+	private long pawnTargets(ChessPiece pawn, int square, long occupied) {
+		Color color = pawn.getColor();
+		int forward = (color == Color.WHITE) ? -BitBoard.SIZE : BitBoard.SIZE;
+		long targets = 0L;
+		
+		//um a frente e dois a frente
+		int one = square + forward;
+		if(one >= 0 && one < 64 && (occupied & (1L << one)) == 0) {
+			targets |= 1L << one;
+			
+			int two = one + forward;
+			if(pawn.getMoveCount() == 0 && two >= 0 && two < 64 && (occupied & (1L << two)) == 0) {
+				targets |= 1L << two;
+			}
+		}
+		
+		//diagonais
+		targets |= Attacks.pawn(color, square) & board.getOccupied(opponent(color));
+		
+		//en passant
+		ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+		int row = square / BitBoard.SIZE;
+		if(vulnerable != null && vulnerable.getPosition() != null && vulnerable.getColor() != color && row == ((color == Color.WHITE) ? 3 : 4)) {
+			int vulnerableSquare = BitBoard.square(vulnerable.getPosition());
+			
+			if(vulnerableSquare / BitBoard.SIZE == row && Math.abs(vulnerableSquare % BitBoard.SIZE - square % BitBoard.SIZE) == 1) {
+				targets |= 1L << (vulnerableSquare + forward);
+			}
+		}
+		
+		return targets;
+	}
+	
+	//rei: casas não atacadas, considerando o rei fora do tabuleiro
+	private long safeKingTargets(int kingSquare, long own, Color opponent, long occupied) {
+		long kingTargets = Attacks.king(kingSquare) & ~own;
+		long withoutKing = occupied & ~(1L << kingSquare);
+		long safe = 0L;
+		
+		while(kingTargets != 0) {
+			int to = Long.numberOfTrailingZeros(kingTargets);
+			
+			if(attackMap.attackersTo(to, opponent, withoutKing) == 0) {
+				safe |= 1L << to;
+			}
+			
+			kingTargets &= kingTargets - 1;
+		}
+		
+		return safe;
+	}
+	
+	//destinos de uma peça que não é o rei, restritos a mask (menos o en passant, conferido à parte)
+	private long pieceTargets(ChessPiece piece, int square, int kingSquare, long occupied, long checkers, long checkMask, long pinned, long mask) {
+		long targets = chessMatch.targets(piece);
+		long enPassant = 0L;
+		
+		if(piece.getType() == PieceType.PAWN) {
+			enPassant = targets & Attacks.pawn(piece.getColor(), square) & ~occupied;
+			targets &= ~enPassant;
+		}
+		
+		targets &= mask & checkMask;
+		
+		if((pinned & (1L << square)) != 0) {
+			targets &= Attacks.line(kingSquare, square);
+		}
+		
+		if(enPassant != 0 && legalEnPassant(square, Long.numberOfTrailingZeros(enPassant), kingSquare, opponent(piece.getColor()), occupied, checkers)) {
+			targets |= enPassant;
+		}
+		
+		return targets;
+	}
+	
+	private long pinned(Color color, int kingSquare, long occupied) {
+		Color opponent = opponent(color);
+		long opponentPieces = board.getOccupied(opponent);
+		long queens = board.getPieces(opponent, PieceType.QUEEN);
+		long snipers = (Attacks.rook(kingSquare, opponentPieces) & (board.getPieces(opponent, PieceType.ROOK) | queens))
+			| (Attacks.bishop(kingSquare, opponentPieces) & (board.getPieces(opponent, PieceType.BISHOP) | queens));
+		long pinned = 0L;
+		
+		while(snipers != 0) {
+			long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+			
+			if(blockers != 0 && (blockers & (blockers - 1)) == 0) {
+				pinned |= blockers & board.getOccupied(color);
+			}
+			
+			snipers &= snipers - 1;
+		}
+		
+		return pinned;
+	}
+	
+	//en passant remove duas peças da linha do rei, então é testado com a ocupação resultante
+	private boolean legalEnPassant(int from, int to, int kingSquare, Color opponent, long occupied, long checkers) {
+		int captured = BitBoard.square(from / BitBoard.SIZE, to % BitBoard.SIZE);
+		long after = (occupied ^ (1L << from) ^ (1L << captured)) | (1L << to);
+		long queens = board.getPieces(opponent, PieceType.QUEEN);
+		
+		if((Attacks.rook(kingSquare, after) & (board.getPieces(opponent, PieceType.ROOK) | queens)) != 0) {
+			return false;
+		}
+		
+		if((Attacks.bishop(kingSquare, after) & (board.getPieces(opponent, PieceType.BISHOP) | queens)) != 0) {
+			return false;
+		}
+		
+		return (checkers & ~(1L << captured) & (board.getPieces(opponent, PieceType.KNIGHT) | board.getPieces(opponent, PieceType.PAWN))) == 0;
+	}
+	
+	//o rei não pode passar nem parar em casa atacada
+	private long legalCastlingTargets(ChessPiece king, int square, long occupied, Color opponent) {
+		long targets = castlingTargets(king, square, occupied, false);
+		long legal = 0L;
+		
+		while(targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			int passing = (to > square) ? square + 1 : square - 1;
+			
+			if(attackMap.attackersTo(passing, opponent, occupied) == 0 && attackMap.attackersTo(to, opponent, occupied) == 0) {
+				legal |= 1L << to;
+			}
+			
+			targets &= targets - 1;
+		}
+		
+		return legal;
+	}
+	
+	private long castlingTargets(ChessPiece king, int square, long occupied, boolean check) {
+		if(king.getMoveCount() != 0 || check) {
+			return 0L;
+		}
+		
+		int row = square / BitBoard.SIZE;
+		int column = square % BitBoard.SIZE;
+		long targets = 0L;
+		
+		//rook direito
+		if(column + 3 < BitBoard.SIZE && testRookCastling(king, square + 3)) {
+			long between = (1L << (square + 1)) | (1L << (square + 2));
+			
+			if((occupied & between) == 0) {
+				targets |= 1L << BitBoard.square(row, column + 2);
+			}
+		}
+		
+		//rook esquerdo
+		if(column - 4 >= 0 && testRookCastling(king, square - 4)) {
+			long between = (1L << (square - 1)) | (1L << (square - 2)) | (1L << (square - 3));
+			
+			if((occupied & between) == 0) {
+				targets |= 1L << BitBoard.square(row, column - 2);
+			}
+		}
+		
+		return targets;
+	}
+	
+	private static Color opponent(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+	
+	private boolean testRookCastling(ChessPiece king, int square) {
+		ChessPiece piece = board.pieceAt(square);
+		return piece != null && piece.getType() == PieceType.ROOK && piece.getColor() == king.getColor() && piece.getMoveCount() == 0;
+	}
+}
\ No newline at end of file
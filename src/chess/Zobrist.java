@@ -0,0 +1,54 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+public class Zobrist {
+	
+	private static final long[][] PIECES = new long[2 * PieceType.values().length][BitBoard.SIZE * BitBoard.SIZE];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT = new long[BitBoard.SIZE];
+	private static final long BLACK_TO_MOVE;
+	
+	static {
+		//semente fixa para que as chaves sejam as mesmas entre execuções
+		SplittableRandom random = new SplittableRandom(0x2B992DDFA23249D6L);
+		
+		for(long[] keys : PIECES) {
+			for(int square = 0; square < keys.length; square++) {
+				keys[square] = random.nextLong();
+			}
+		}
+		
+		//combinações de direitos de roque são o xor dos direitos individuais
+		long[] rights = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+		for(int i = 0; i < CASTLING.length; i++) {
+			for(int bit = 0; bit < rights.length; bit++) {
+				if((i & (1 << bit)) != 0) {
+					CASTLING[i] ^= rights[bit];
+				}
+			}
+		}
+		
+		for(int column = 0; column < EN_PASSANT.length; column++) {
+			EN_PASSANT[column] = random.nextLong();
+		}
+		
+		BLACK_TO_MOVE = random.nextLong();
+	}
+	
+	public static long piece(Color color, PieceType type, int square) {
+		return PIECES[color.ordinal() * 6 + type.ordinal()][square];
+	}
+	
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+	
+	public static long enPassant(int column) {
+		return EN_PASSANT[column];
+	}
+	
+	public static long blackToMove() {
+		return BLACK_TO_MOVE;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+//entradas de 16 bytes como no Polyglot: chave, lance, peso e 4 bytes livres, ordenadas por chave e lance
+public class OpeningBook {
+	
+	static final int ENTRY_SIZE = 16;
+	
+	private MappedByteBuffer data;
+	private int entries;
+	
+	//lances legais, do livro e pesos por thread, já que o livro é compartilhado entre buscas
+	private ThreadLocal<int[][]> buffers = ThreadLocal.withInitial(() -> new int[3][MoveGenerator.MAX_MOVES]);
+	
+	public OpeningBook(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() % ENTRY_SIZE != 0 || channel.size() / ENTRY_SIZE > Integer.MAX_VALUE) {
+				throw new IOException("Arquivo de livro inválido: " + path);
+			}
+			
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			entries = (int) (channel.size() / ENTRY_SIZE);
+		}
+	}
+	
+	public int getEntries() {
+		return entries;
+	}
+	
+	//lances do livro para a posição, com os pesos; só entram lances legais, o que descarta colisões de chave
+	public int moves(ChessMatch chessMatch, int[] moves, int[] weights) {
+		long key = chessMatch.getZobristKey();
+		int[] legal = buffers.get()[0];
+		int legalCount = -1;
+		int count = 0;
+		
+		for(int entry = find(key); entry < entries && key(entry) == key && count < moves.length; entry++) {
+			if(legalCount < 0) {
+				legalCount = chessMatch.generateLegalMoves(legal);
+			}
+			
+			int move = move(entry);
+			for(int i = 0; i < legalCount; i++) {
+				if(legal[i] == move) {
+					moves[count] = move;
+					weights[count] = weight(entry);
+					count++;
+					break;
+				}
+			}
+		}
+		
+		return count;
+	}
+	
+	public int pick(ChessMatch chessMatch) {
+		return pick(chessMatch, ThreadLocalRandom.current());
+	}
+	
+	//sorteio proporcional ao peso, para variar as aberturas; Move.NONE fora do livro
+	public int pick(ChessMatch chessMatch, Random random) {
+		int[][] buffer = buffers.get();
+		int[] moves = buffer[1];
+		int[] weights = buffer[2];
+		int count = moves(chessMatch, moves, weights);
+		
+		int total = 0;
+		for(int i = 0; i < count; i++) {
+			total += weights[i];
+		}
+		
+		if(total == 0) {
+			return Move.NONE;
+		}
+		
+		int chosen = random.nextInt(total);
+		for(int i = 0; i < count; i++) {
+			chosen -= weights[i];
+			
+			if(chosen < 0) {
+				return moves[i];
+			}
+		}
+		
+		return Move.NONE;
+	}
+	
+	//primeira entrada com chave maior ou igual, comparando sem sinal como o arquivo é ordenado
+	private int find(long key) {
+		int low = 0;
+		int high = entries;
+		
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			
+			if(Long.compareUnsigned(key(middle), key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		
+		return low;
+	}
+	
+	private long key(int entry) {
+		return data.getLong(entry * ENTRY_SIZE);
+	}
+	
+	private int move(int entry) {
+		return data.getShort(entry * ENTRY_SIZE + 8) & 0xFFFF;
+	}
+	
+	private int weight(int entry) {
+		return data.getShort(entry * ENTRY_SIZE + 10) & 0xFFFF;
+	}
+	
+	//uso: OpeningBook <livro> [fen]
+	public static void main(String[] args) throws IOException {
+		OpeningBook book = new OpeningBook(Paths.get(args[0]));
+		ChessMatch chessMatch = (args.length > 1) ? new ChessMatch(args[1]) : new ChessMatch();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int[] weights = new int[MoveGenerator.MAX_MOVES];
+		
+		long start = System.nanoTime();
+		int count = book.moves(chessMatch, moves, weights);
+		long nanos = System.nanoTime() - start;
+		
+		System.out.printf("%d entradas, consulta em %.1f µs%n", book.getEntries(), nanos / 1e3);
+		for(int i = 0; i < count; i++) {
+			System.out.println(Move.toString(moves[i]) + " " + weights[i]);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.pgn.PgnListener;
+import chess.pgn.PgnReader;
+
+//reproduz as partidas pelo PgnReader e soma, para cada posição e lance, os pontos de quem jogou
+public class OpeningBookBuilder implements PgnListener {
+	
+	public static final int DEFAULT_MAX_PLIES = 24;
+	
+	private static final int MAX_WEIGHT = 0xFFFF;
+	
+	private int maxPlies;
+	
+	//tabela de espalhamento aberta de (chave, lance), dobrada quando passa da metade
+	private long[] keys = new long[1 << 16];
+	private int[] moves = new int[1 << 16];
+	private int[] weights = new int[1 << 16];
+	private int size;
+	
+	//lances da partida atual, que só entram no livro quando o resultado é conhecido
+	private long[] gameKeys;
+	private int[] gameMoves;
+	private int gamePlies;
+	private long previousKey;
+	private boolean whiteFirst;
+	
+	public OpeningBookBuilder() {
+		this(DEFAULT_MAX_PLIES);
+	}
+	
+	public OpeningBookBuilder(int maxPlies) {
+		this.maxPlies = maxPlies;
+		gameKeys = new long[maxPlies];
+		gameMoves = new int[maxPlies];
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	@Override
+	public void startGame(Map<String, String> tags, ChessMatch chessMatch) {
+		gamePlies = 0;
+		previousKey = chessMatch.getZobristKey();
+		whiteFirst = chessMatch.getSideToMove() == Color.WHITE;
+	}
+	
+	@Override
+	public void move(ChessMatch chessMatch, int move) {
+		if(gamePlies < maxPlies) {
+			gameKeys[gamePlies] = previousKey;
+			gameMoves[gamePlies] = move;
+		}
+		
+		gamePlies++;
+		previousKey = chessMatch.getZobristKey();
+	}
+	
+	//vitória vale 2 e empate 1 para quem fez o lance; lances que só perderam ficam fora do livro
+	@Override
+	public void endGame(ChessMatch chessMatch, String result) {
+		int white;
+		switch(result) {
+		case "1-0":
+			white = 2;
+			break;
+		case "0-1":
+			white = 0;
+			break;
+		default:
+			white = 1;
+		}
+		
+		for(int ply = 0; ply < Math.min(gamePlies, maxPlies); ply++) {
+			boolean whiteMoved = whiteFirst == (ply % 2 == 0);
+			add(gameKeys[ply], gameMoves[ply], whiteMoved ? white : 2 - white);
+		}
+	}
+	
+	public void add(long key, int move, int weight) {
+		if(weight == 0) {
+			return;
+		}
+		
+		if(size * 2 >= keys.length) {
+			grow();
+		}
+		
+		int mask = keys.length - 1;
+		int slot = slot(key, move, mask);
+		
+		while(weights[slot] != 0 && (keys[slot] != key || moves[slot] != move)) {
+			slot = (slot + 1) & mask;
+		}
+		
+		if(weights[slot] == 0) {
+			keys[slot] = key;
+			moves[slot] = move;
+			size++;
+		}
+		
+		weights[slot] += weight;
+	}
+	
+	//entradas ordenadas por chave sem sinal e lance; pesos acima de 16 bits são reduzidos na mesma proporção
+	public void write(Path path) throws IOException {
+		int[] order = new int[size];
+		int maxWeight = 0;
+		
+		for(int slot = 0, i = 0; slot < keys.length; slot++) {
+			if(weights[slot] != 0) {
+				order[i++] = slot;
+				maxWeight = Math.max(maxWeight, weights[slot]);
+			}
+		}
+		
+		sort(order, 0, size - 1);
+		
+		ByteBuffer buffer = ByteBuffer.allocate(size * OpeningBook.ENTRY_SIZE);
+		for(int slot : order) {
+			int weight = (maxWeight > MAX_WEIGHT) ? (int) Math.max(1L, (long) weights[slot] * MAX_WEIGHT / maxWeight) : weights[slot];
+			
+			buffer.putLong(keys[slot]);
+			buffer.putShort((short) moves[slot]);
+			buffer.putShort((short) weight);
+			buffer.putInt(0);
+		}
+		buffer.flip();
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+	
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldMoves = moves;
+		int[] oldWeights = weights;
+		
+		keys = new long[oldKeys.length * 2];
+		moves = new int[oldKeys.length * 2];
+		weights = new int[oldKeys.length * 2];
+		size = 0;
+		
+		for(int slot = 0; slot < oldKeys.length; slot++) {
+			if(oldWeights[slot] != 0) {
+				add(oldKeys[slot], oldMoves[slot], oldWeights[slot]);
+			}
+		}
+	}
+	
+	private static int slot(long key, int move, int mask) {
+		long hash = (key ^ move) * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & mask;
+	}
+	
+	private int compare(int a, int b) {
+		int byKey = Long.compareUnsigned(keys[a], keys[b]);
+		return (byKey != 0) ? byKey : Integer.compare(moves[a], moves[b]);
+	}
+	
+	//quicksort dos índices, sem criar objetos para o comparador
+	private void sort(int[] order, int low, int high) {
+		while(low < high) {
+			int pivot = order[(low + high) >>> 1];
+			int i = low;
+			int j = high;
+			
+			while(i <= j) {
+				while(compare(order[i], pivot) < 0) {
+					i++;
+				}
+				while(compare(order[j], pivot) > 0) {
+					j--;
+				}
+				
+				if(i <= j) {
+					int swap = order[i];
+					order[i] = order[j];
+					order[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			
+			//recursão no lado menor para limitar a pilha
+			if(j - low < high - i) {
+				sort(order, low, j);
+				low = i;
+			} else {
+				sort(order, i, high);
+				high = j;
+			}
+		}
+	}
+	
+	//uso: OpeningBookBuilder <livro> <pgn> [pgn ...]
+	public static void main(String[] args) throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		PgnReader reader = new PgnReader(new ChessMatch());
+		
+		for(String file : Arrays.copyOfRange(args, 1, args.length)) {
+			System.out.println(file + ": " + reader.read(Paths.get(file), builder));
+		}
+		
+		builder.write(Paths.get(args[0]));
+		System.out.println(builder.getSize() + " entradas gravadas em " + args[0]);
+	}
+}
\ No newline at end of file
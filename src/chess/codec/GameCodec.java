@@ -0,0 +1,221 @@
+package chess.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.pgn.PgnListener;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnReport;
+
+//registro de partida: 1 byte de cabeçalho (resultado e se há FEN), número de lances em varint,
+//FEN opcional com tamanho em varint e os lances em 16 bits (origem, destino e tipo, como em Move)
+public class GameCodec {
+	
+	private static final int RESULT_MASK = 0x3;
+	private static final int HAS_FEN = 0x4;
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	private GameCodec() {
+	}
+	
+	public static void encodeMove(ByteBuffer buffer, int move) {
+		buffer.putShort((short) move);
+	}
+	
+	public static int decodeMove(ByteBuffer buffer) {
+		return buffer.getShort() & 0xFFFF;
+	}
+	
+	public static int encodedSize(GameRecord record) {
+		int size = 1 + varintSize(record.getMoves().length) + 2 * record.getMoves().length;
+		
+		if(record.getFen() != null) {
+			int length = record.getFen().getBytes(StandardCharsets.UTF_8).length;
+			size += varintSize(length) + length;
+		}
+		
+		return size;
+	}
+	
+	//false, sem escrever nada, se o registro não cabe no espaço restante
+	public static boolean encode(ByteBuffer buffer, GameRecord record) {
+		if(buffer.remaining() < encodedSize(record)) {
+			return false;
+		}
+		
+		int[] moves = record.getMoves();
+		byte[] fen = (record.getFen() == null) ? null : record.getFen().getBytes(StandardCharsets.UTF_8);
+		
+		buffer.put((byte) ((record.getResult() & RESULT_MASK) | ((fen != null) ? HAS_FEN : 0)));
+		putVarint(buffer, moves.length);
+		
+		if(fen != null) {
+			putVarint(buffer, fen.length);
+			buffer.put(fen);
+		}
+		
+		for(int move : moves) {
+			encodeMove(buffer, move);
+		}
+		
+		return true;
+	}
+	
+	//null, com a posição do buffer intacta, se o registro ainda não chegou inteiro
+	public static GameRecord decode(ByteBuffer buffer) {
+		int start = buffer.position();
+		
+		try {
+			int header = buffer.get();
+			int plies = getVarint(buffer);
+			String fen = null;
+			
+			if((header & HAS_FEN) != 0) {
+				byte[] bytes = new byte[getVarint(buffer)];
+				buffer.get(bytes);
+				fen = new String(bytes, StandardCharsets.UTF_8);
+			}
+			
+			if(buffer.remaining() < 2 * plies) {
+				buffer.position(start);
+				return null;
+			}
+			
+			int[] moves = new int[plies];
+			for(int i = 0; i < plies; i++) {
+				moves[i] = decodeMove(buffer);
+			}
+			
+			return new GameRecord(fen, header & RESULT_MASK, moves);
+		} catch(BufferUnderflowException e) {
+			buffer.position(start);
+			return null;
+		}
+	}
+	
+	private static void putVarint(ByteBuffer buffer, int value) {
+		while((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		
+		buffer.put((byte) value);
+	}
+	
+	private static int getVarint(ByteBuffer buffer) {
+		int value = 0;
+		
+		for(int shift = 0; ; shift += 7) {
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+	
+	private static int varintSize(int value) {
+		int size = 1;
+		
+		while((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		
+		return size;
+	}
+	
+	//uso: GameCodec <pgn> <saída>: converte e confere cada partida decodificada pelo ChessMatch
+	public static void main(String[] args) throws IOException {
+		Path output = Paths.get(args[1]);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		List<Long> finalKeys = new ArrayList<>();
+		
+		try(FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			PgnListener listener = new PgnListener() {
+				private String fen;
+				private int[] moves = new int[256];
+				private int plies;
+				
+				@Override
+				public void startGame(Map<String, String> tags, ChessMatch chessMatch) {
+					fen = tags.get("FEN");
+					plies = 0;
+				}
+				
+				@Override
+				public void move(ChessMatch chessMatch, int move) {
+					if(plies == moves.length) {
+						moves = Arrays.copyOf(moves, plies * 2);
+					}
+					moves[plies++] = move;
+				}
+				
+				@Override
+				public void endGame(ChessMatch chessMatch, String result) {
+					GameRecord record = new GameRecord(fen, GameRecord.result(result), Arrays.copyOf(moves, plies));
+					
+					try {
+						if(!encode(buffer, record)) {
+							write(channel, buffer);
+							
+							if(!encode(buffer, record)) {
+								throw new IllegalStateException("Partida maior que o buffer de gravação");
+							}
+						}
+					} catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					
+					finalKeys.add(chessMatch.getZobristKey());
+				}
+			};
+			
+			PgnReport report = new PgnReader(new ChessMatch()).read(Paths.get(args[0]), listener);
+			write(channel, buffer);
+			System.out.println(report);
+		}
+		
+		long pgnSize = Files.size(Paths.get(args[0]));
+		long binarySize = Files.size(output);
+		System.out.printf("PGN %d bytes, binário %d bytes: %.1fx menor%n", pgnSize, binarySize, (double) pgnSize / binarySize);
+		
+		try(FileChannel channel = FileChannel.open(output, StandardOpenOption.READ)) {
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int decoded = 0;
+			GameRecord record;
+			
+			while((record = decode(data)) != null) {
+				if(record.replay().getZobristKey() != finalKeys.get(decoded)) {
+					throw new IllegalStateException("Partida " + (decoded + 1) + " decodificada diferente da original");
+				}
+				decoded++;
+			}
+			
+			System.out.println(decoded + " de " + finalKeys.size() + " partidas conferidas");
+		}
+	}
+	
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
\ No newline at end of file
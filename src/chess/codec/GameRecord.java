@@ -0,0 +1,85 @@
+package chess.codec;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.MoveGenerator;
+
+//partida como lances de 16 bits a partir de uma posição inicial; fen nula é a posição padrão
+public class GameRecord {
+	
+	public static final int UNKNOWN = 0;
+	public static final int WHITE_WINS = 1;
+	public static final int BLACK_WINS = 2;
+	public static final int DRAW = 3;
+	
+	private String fen;
+	private int result;
+	private int[] moves;
+	
+	public GameRecord(String fen, int result, int[] moves) {
+		this.fen = fen;
+		this.result = result;
+		this.moves = moves;
+	}
+	
+	public String getFen() {
+		return fen;
+	}
+	
+	public int getResult() {
+		return result;
+	}
+	
+	public int[] getMoves() {
+		return moves;
+	}
+	
+	//reproduz a partida conferindo cada lance contra os lances legais da posição
+	public ChessMatch replay() {
+		ChessMatch chessMatch = (fen == null) ? new ChessMatch() : new ChessMatch(fen);
+		int[] legal = new int[MoveGenerator.MAX_MOVES];
+		
+		for(int ply = 0; ply < moves.length; ply++) {
+			int count = chessMatch.generateLegalMoves(legal);
+			boolean found = false;
+			
+			for(int i = 0; i < count && !found; i++) {
+				found = legal[i] == moves[ply];
+			}
+			
+			if(!found) {
+				throw new ChessException("Lance inválido no meio-lance " + (ply + 1) + " da partida");
+			}
+			
+			chessMatch.makeMove(moves[ply]);
+		}
+		
+		return chessMatch;
+	}
+	
+	public static int result(String result) {
+		switch(result) {
+		case "1-0":
+			return WHITE_WINS;
+		case "0-1":
+			return BLACK_WINS;
+		case "1/2-1/2":
+			return DRAW;
+		default:
+			return UNKNOWN;
+		}
+	}
+	
+	public static String result(int result) {
+		switch(result) {
+		case WHITE_WINS:
+			return "1-0";
+		case BLACK_WINS:
+			return "0-1";
+		case DRAW:
+			return "1/2-1/2";
+		default:
+			return "*";
+		}
+	}
+}
\ No newline at end of file
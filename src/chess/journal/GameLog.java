@@ -0,0 +1,48 @@
+package chess.journal;
+
+import java.util.Arrays;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+
+//lances de uma partida aberta lidos do journal, refeitos depois com performChessMove
+class GameLog {
+	
+	static final int PROMOTION = 1 << 16;
+	
+	private String fen;
+	private int[] operations = new int[16];
+	private int count;
+	
+	GameLog(String fen) {
+		this.fen = fen;
+	}
+	
+	void add(int operation) {
+		if(count == operations.length) {
+			operations = Arrays.copyOf(operations, count * 2);
+		}
+		
+		operations[count++] = operation;
+	}
+	
+	ChessMatch replay() {
+		ChessMatch chessMatch = (fen == null) ? new ChessMatch() : new ChessMatch(fen);
+		
+		for(int i = 0; i < count; i++) {
+			int operation = operations[i];
+			
+			if((operation & PROMOTION) != 0) {
+				chessMatch.replacePromotedPiece(String.valueOf((char) (operation & 0xFF)));
+			} else {
+				chessMatch.performChessMove(position(operation & 0x3F), position((operation >>> 6) & 0x3F));
+			}
+		}
+		
+		return chessMatch;
+	}
+	
+	private static ChessPosition position(int square) {
+		return new ChessPosition(8 - square / 8, (char) ('a' + square % 8));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,476 @@
+package chess.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+//journal só de acréscimo em segmentos mapeados; cada registro tem tamanho (4), CRC32C do resto (4),
+//sequência (8), partida (8), tipo (1) e os dados do tipo
+public class Journal implements Closeable {
+	
+	public static final int CREATE = 1;
+	public static final int MOVE = 2;
+	public static final int PROMOTE = 3;
+	public static final int REMOVE = 4;
+	//maior id de partida já usado, no campo da partida; a compactação o grava porque descarta os CREATE das removidas
+	public static final int LAST_GAME = 5;
+	
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	
+	private static final int HEADER_SIZE = 25;
+	private static final String PREFIX = "journal-";
+	private static final String EXTENSION = ".log";
+	private static final String TEMPORARY = ".tmp";
+	
+	private Path directory;
+	private int segmentSize;
+	private List<Path> segments = new ArrayList<>();
+	private int segmentNumber;
+	private FileChannel channel;
+	private MappedByteBuffer active;
+	private CRC32C crc = new CRC32C();
+	private byte[] scratch = new byte[3];
+	
+	private long sequence;
+	private long lastGame;
+	private Set<Long> live = new HashSet<>();
+	private Map<Long, GameLog> recovered = new HashMap<>();
+	
+	//commit em grupo: um único force cobre todos os registros gravados enquanto o anterior rodava
+	private long durable;
+	private int flushed;
+	private boolean requested;
+	private boolean closed;
+	private Thread committer;
+	private Object compaction = new Object();
+	
+	public Journal(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+	
+	public Journal(Path directory, int segmentSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+		
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				
+				//sobra de uma compactação interrompida; os segmentos originais ainda estão inteiros
+				if(name.endsWith(TEMPORARY)) {
+					Files.delete(file);
+				} else if(name.endsWith(EXTENSION)) {
+					segments.add(file);
+				}
+			}
+		}
+		Collections.sort(segments);
+		
+		//todos os segmentos são lidos uma vez; o último continua recebendo registros
+		for(int i = 0; i < segments.size(); i++) {
+			try(FileChannel file = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+				int end = scan(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()));
+				
+				if(i == segments.size() - 1) {
+					segmentNumber = number(segments.get(i));
+					channel = FileChannel.open(segments.get(i), StandardOpenOption.READ, StandardOpenOption.WRITE);
+					active = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(file.size(), segmentSize));
+					active.position(end);
+					flushed = end;
+				}
+			}
+		}
+		
+		if(segments.isEmpty()) {
+			openSegment(1);
+		}
+		
+		durable = sequence;
+		committer = new Thread(this::commit, "journal");
+		committer.setDaemon(true);
+		committer.start();
+	}
+	
+	public long getLastGame() {
+		return lastGame;
+	}
+	
+	public synchronized int getSegments() {
+		return segments.size();
+	}
+	
+	public synchronized long create(long game, String fen) {
+		byte[] data = (fen == null) ? new byte[0] : fen.getBytes(StandardCharsets.UTF_8);
+		live.add(game);
+		lastGame = Math.max(lastGame, game);
+		return append(CREATE, game, data, data.length);
+	}
+	
+	//casas no índice do tabuleiro (linha * 8 + coluna, linha 0 na oitava fileira)
+	public synchronized long move(long game, int source, int target) {
+		return move(game, source, target, (char) 0);
+	}
+	
+	//com promoção o tipo vai no mesmo registro, e o lance nunca fica gravado pela metade
+	public synchronized long move(long game, int source, int target, char promotion) {
+		int move = source | (target << 6);
+		scratch[0] = (byte) (move >>> 8);
+		scratch[1] = (byte) move;
+		scratch[2] = (byte) promotion;
+		return append(MOVE, game, scratch, (promotion == 0) ? 2 : 3);
+	}
+	
+	public synchronized long promote(long game, char type) {
+		scratch[0] = (byte) type;
+		return append(PROMOTE, game, scratch, 1);
+	}
+	
+	public synchronized long remove(long game) {
+		live.remove(game);
+		return append(REMOVE, game, scratch, 0);
+	}
+	
+	//espera até o registro com essa sequência estar no disco
+	public synchronized void sync(long target) {
+		while(durable < target && !closed) {
+			requested = true;
+			notifyAll();
+			
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrompido esperando o journal", e);
+			}
+		}
+	}
+	
+	//partidas ainda abertas, refeitas pelo ChessMatch em paralelo; só pode ser chamado uma vez
+	public synchronized Map<Long, ChessMatch> recover() {
+		if(recovered == null) {
+			throw new IllegalStateException("Journal já recuperado");
+		}
+		
+		Map<Long, ChessMatch> matches = new ConcurrentHashMap<>();
+		recovered.entrySet().parallelStream().forEach(entry -> matches.put(entry.getKey(), entry.getValue().replay()));
+		recovered = null;
+		
+		return matches;
+	}
+	
+	//reescreve os segmentos fechados só com os registros das partidas abertas, mais um LAST_GAME no fim; a cópia
+	//fica com o nome do último deles, e registros repetidos depois de uma queda são pulados pela sequência
+	public void compact() throws IOException {
+		synchronized(compaction) {
+			List<Path> sealed;
+			Set<Long> games;
+			long highest;
+			
+			synchronized(this) {
+				sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+				games = new HashSet<>(live);
+				highest = lastGame;
+			}
+			
+			if(sealed.size() < 2) {
+				return;
+			}
+			
+			Path target = sealed.get(sealed.size() - 1);
+			Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+			CRC32C check = new CRC32C();
+			long lastSequence = 0;
+			
+			try(FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				for(Path file : sealed) {
+					try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+						MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+						int length;
+						
+						for(int position = 0; (length = length(data, position, check)) > 0; position += length) {
+							lastSequence = Math.max(lastSequence, data.getLong(position + 8));
+							
+							if(data.get(position + 24) == LAST_GAME || !games.contains(data.getLong(position + 16))) {
+								continue;
+							}
+							
+							if(buffer.remaining() < length) {
+								write(out, buffer);
+							}
+							buffer.put(data.slice(position, length));
+						}
+					}
+				}
+				
+				if(buffer.remaining() < HEADER_SIZE) {
+					write(out, buffer);
+				}
+				
+				//com a maior sequência dos segmentos lidos, para o contador não voltar atrás
+				int start = buffer.position();
+				buffer.putInt(HEADER_SIZE).putInt(0).putLong(lastSequence).putLong(highest).put((byte) LAST_GAME);
+				check.reset();
+				check.update(buffer.slice(start + 8, HEADER_SIZE - 8));
+				buffer.putInt(start + 4, (int) check.getValue());
+				
+				write(out, buffer);
+				out.force(true);
+			}
+			
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			for(Path file : sealed.subList(0, sealed.size() - 1)) {
+				Files.delete(file);
+			}
+			
+			synchronized(this) {
+				segments.removeAll(sealed.subList(0, sealed.size() - 1));
+			}
+		}
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		
+		closed = true;
+		active.force();
+		durable = sequence;
+		channel.close();
+		notifyAll();
+	}
+	
+	private long append(int type, long game, byte[] data, int dataLength) {
+		if(closed) {
+			throw new IllegalStateException("Journal fechado");
+		}
+		
+		int length = HEADER_SIZE + dataLength;
+		if(active.remaining() < length) {
+			roll();
+		}
+		
+		//o CRC vai por último: um registro cortado por uma queda não confere e encerra a leitura
+		int start = active.position();
+		sequence++;
+		active.putInt(length).putInt(0).putLong(sequence).putLong(game).put((byte) type).put(data, 0, dataLength);
+		crc.reset();
+		crc.update(active.slice(start + 8, length - 8));
+		active.putInt(start + 4, (int) crc.getValue());
+		
+		return sequence;
+	}
+	
+	//o segmento cheio vai inteiro para o disco antes de o próximo ser aberto
+	private void roll() {
+		try {
+			active.force();
+			channel.close();
+			durable = sequence;
+			notifyAll();
+			openSegment(segmentNumber + 1);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private void openSegment(int number) throws IOException {
+		Path file = directory.resolve(String.format("%s%06d%s", PREFIX, number, EXTENSION));
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		segments.add(file);
+		segmentNumber = number;
+		flushed = 0;
+	}
+	
+	private void commit() {
+		while(true) {
+			MappedByteBuffer buffer;
+			int from;
+			int to;
+			long target;
+			
+			synchronized(this) {
+				while(!closed && !(requested && durable < sequence)) {
+					try {
+						wait();
+					} catch(InterruptedException e) {
+						return;
+					}
+				}
+				
+				if(closed) {
+					return;
+				}
+				
+				requested = false;
+				buffer = active;
+				from = flushed;
+				to = active.position();
+				target = sequence;
+				flushed = to;
+			}
+			
+			//fora do bloqueio, para que outras threads continuem gravando durante o force
+			buffer.force(from, to - from);
+			
+			synchronized(this) {
+				durable = Math.max(durable, target);
+				notifyAll();
+			}
+		}
+	}
+	
+	//lê os registros válidos do segmento e devolve onde eles terminam
+	private int scan(ByteBuffer data) {
+		int position = 0;
+		int length;
+		
+		for(; (length = length(data, position, crc)) > 0; position += length) {
+			long recordSequence = data.getLong(position + 8);
+			long game = data.getLong(position + 16);
+			int type = data.get(position + 24);
+			
+			//vale mesmo repetido, porque só aumenta os contadores
+			if(type == LAST_GAME) {
+				lastGame = Math.max(lastGame, game);
+				sequence = Math.max(sequence, recordSequence);
+				continue;
+			}
+			
+			//cópia compactada de registros já lidos
+			if(recordSequence <= sequence) {
+				continue;
+			}
+			
+			sequence = recordSequence;
+			GameLog log = recovered.get(game);
+			
+			switch(type) {
+			case CREATE:
+				byte[] fen = new byte[length - HEADER_SIZE];
+				data.get(position + HEADER_SIZE, fen);
+				recovered.put(game, new GameLog((fen.length == 0) ? null : new String(fen, StandardCharsets.UTF_8)));
+				live.add(game);
+				lastGame = Math.max(lastGame, game);
+				break;
+			case MOVE:
+				if(log != null) {
+					log.add(data.getShort(position + HEADER_SIZE) & 0xFFFF);
+					
+					if(length - HEADER_SIZE > 2) {
+						log.add(GameLog.PROMOTION | data.get(position + HEADER_SIZE + 2));
+					}
+				}
+				break;
+			case PROMOTE:
+				if(log != null) {
+					log.add(GameLog.PROMOTION | data.get(position + HEADER_SIZE));
+				}
+				break;
+			case REMOVE:
+				recovered.remove(game);
+				live.remove(game);
+				break;
+			}
+		}
+		
+		return position;
+	}
+	
+	//tamanho do registro na posição, ou zero se ali não há um registro inteiro e com o CRC certo
+	private static int length(ByteBuffer data, int position, CRC32C crc) {
+		if(data.limit() - position < HEADER_SIZE) {
+			return 0;
+		}
+		
+		int length = data.getInt(position);
+		if(length < HEADER_SIZE || length > data.limit() - position) {
+			return 0;
+		}
+		
+		crc.reset();
+		crc.update(data.slice(position + 8, length - 8));
+		return ((int) crc.getValue() == data.getInt(position + 4)) ? length : 0;
+	}
+	
+	private static int number(Path segment) {
+		String name = segment.getFileName().toString();
+		return Integer.parseInt(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+	}
+	
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	//uso: Journal <diretório> [partidas]: grava partidas aleatórias e mede a recuperação
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args[0]);
+		
+		if(args.length > 1) {
+			int games = Integer.parseInt(args[1]);
+			int[] moves = new int[MoveGenerator.MAX_MOVES];
+			long start = System.nanoTime();
+			
+			try(Journal journal = new Journal(directory)) {
+				long last = 0;
+				
+				for(long game = journal.getLastGame() + 1, end = game + games; game < end; game++) {
+					ChessMatch chessMatch = new ChessMatch();
+					journal.create(game, null);
+					
+					for(int ply = 0; ply < 40; ply++) {
+						int count = chessMatch.generateLegalMoves(moves);
+						if(count == 0) {
+							break;
+						}
+						
+						int move = moves[(int) ((game * 31 + ply * 7) % count)];
+						chessMatch.makeMove(move);
+						char promotion = Move.isPromotion(move) ? Character.toUpperCase("nbrq".charAt(Move.flags(move) & 0x3)) : 0;
+						last = journal.move(game, Move.from(move), Move.to(move), promotion);
+					}
+				}
+				
+				journal.sync(last);
+				System.out.printf("%d partidas gravadas em %.1f s, %d segmentos%n", games, (System.nanoTime() - start) / 1e9, journal.getSegments());
+			}
+		}
+		
+		long start = System.nanoTime();
+		try(Journal journal = new Journal(directory)) {
+			Map<Long, ChessMatch> matches = journal.recover();
+			System.out.printf("%d partidas recuperadas em %.1f s%n", matches.size(), (System.nanoTime() - start) / 1e9);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package chess.perft;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+public class ParallelPerft {
+	
+	private ForkJoinPool pool;
+	private int splitDepth = 2;
+	
+	public ParallelPerft(int threads) {
+		pool = new ForkJoinPool(threads);
+	}
+	
+	public int getSplitDepth() {
+		return splitDepth;
+	}
+	
+	//quantos níveis a partir da raiz são divididos em tarefas
+	public void setSplitDepth(int splitDepth) {
+		this.splitDepth = splitDepth;
+	}
+	
+	public long perft(ChessMatch chessMatch, int depth) {
+		Perft.checkDepth(depth, 0);
+		return pool.invoke(new PerftTask(chessMatch.copy(), depth, splitDepth));
+	}
+	
+	public long divide(ChessMatch chessMatch, int depth, PrintStream out) {
+		Perft.checkDepth(depth, 1);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = chessMatch.generateLegalMoves(moves);
+		List<PerftTask> tasks = new ArrayList<>();
+		
+		for(int i = 0; i < count; i++) {
+			tasks.add(child(chessMatch, moves[i], depth - 1, splitDepth - 1));
+		}
+		
+		for(PerftTask task : tasks) {
+			pool.execute(task);
+		}
+		
+		long nodes = 0;
+		for(int i = 0; i < count; i++) {
+			long moveNodes = tasks.get(i).join();
+			out.println(Move.toString(moves[i]) + ": " + moveNodes);
+			nodes += moveNodes;
+		}
+		
+		out.println();
+		out.println("Lances: " + count);
+		out.println("Nós: " + nodes);
+		return nodes;
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	private static PerftTask child(ChessMatch chessMatch, int move, int depth, int splitDepth) {
+		ChessMatch copy = chessMatch.copy();
+		copy.makeMove(move);
+		return new PerftTask(copy, depth, splitDepth);
+	}
+	
+	private static class PerftTask extends RecursiveTask<Long> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private ChessMatch chessMatch;
+		private int depth;
+		private int splitDepth;
+		
+		public PerftTask(ChessMatch chessMatch, int depth, int splitDepth) {
+			this.chessMatch = chessMatch;
+			this.depth = depth;
+			this.splitDepth = splitDepth;
+		}
+		
+		@Override
+		protected Long compute() {
+			if(splitDepth <= 0 || depth <= 2) {
+				return new Perft(chessMatch).perft(depth);
+			}
+			
+			int[] moves = new int[MoveGenerator.MAX_MOVES];
+			int count = chessMatch.generateLegalMoves(moves);
+			List<PerftTask> tasks = new ArrayList<>();
+			
+			for(int i = 0; i < count; i++) {
+				tasks.add(child(chessMatch, moves[i], depth - 1, splitDepth - 1));
+			}
+			
+			long nodes = 0;
+			for(PerftTask task : invokeAll(tasks)) {
+				nodes += task.join();
+			}
+			
+			return nodes;
+		}
+	}
+	
+	//uso: ParallelPerft <profundidade> [threads] [fen]
+	public static void main(String[] args) {
+		int depth = Integer.parseInt(args[0]);
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		ChessMatch chessMatch = (args.length > 2) ? new ChessMatch(args[2]) : new ChessMatch();
+		ParallelPerft perft = new ParallelPerft(threads);
+		
+		long start = System.nanoTime();
+		long nodes = perft.perft(chessMatch, depth);
+		long nanos = System.nanoTime() - start;
+		perft.shutdown();
+		
+		System.out.printf("%d nós em %.1f ms com %d threads, %.0f nós/s%n", nodes, nanos / 1e6, threads, nodes / (nanos / 1e9));
+	}
+}
\ No newline at end of file
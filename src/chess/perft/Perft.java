@@ -0,0 +1,84 @@
+package chess.perft;
+
+import java.io.PrintStream;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+public class Perft {
+	
+	static final int MAX_DEPTH = 64;
+	
+	private ChessMatch chessMatch;
+	private boolean bulkCounting = true;
+	private int[][] moves = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+	
+	public Perft(ChessMatch chessMatch) {
+		this.chessMatch = chessMatch;
+	}
+	
+	public boolean isBulkCounting() {
+		return bulkCounting;
+	}
+	
+	//no último nível conta os lances gerados em vez de jogá-los
+	public void setBulkCounting(boolean bulkCounting) {
+		this.bulkCounting = bulkCounting;
+	}
+	
+	public long perft(int depth) {
+		checkDepth(depth, 0);
+		return count(depth);
+	}
+	
+	//moves é indexado pela profundidade restante
+	private long count(int depth) {
+		if(depth == 0) {
+			return 1;
+		}
+		
+		int[] buffer = moves[depth];
+		int count = chessMatch.generateLegalMoves(buffer);
+		
+		if(depth == 1 && bulkCounting) {
+			return count;
+		}
+		
+		long nodes = 0;
+		for(int i = 0; i < count; i++) {
+			chessMatch.makeMove(buffer[i]);
+			nodes += count(depth - 1);
+			chessMatch.unmakeMove();
+		}
+		
+		return nodes;
+	}
+	
+	public long divide(int depth, PrintStream out) {
+		checkDepth(depth, 1);
+		int[] buffer = moves[depth];
+		int count = chessMatch.generateLegalMoves(buffer);
+		long nodes = 0;
+		
+		for(int i = 0; i < count; i++) {
+			chessMatch.makeMove(buffer[i]);
+			long moveNodes = count(depth - 1);
+			chessMatch.unmakeMove();
+			
+			out.println(Move.toString(buffer[i]) + ": " + moveNodes);
+			nodes += moveNodes;
+		}
+		
+		out.println();
+		out.println("Lances: " + count);
+		out.println("Nós: " + nodes);
+		return nodes;
+	}
+	
+	static void checkDepth(int depth, int minimum) {
+		if(depth < minimum || depth >= MAX_DEPTH) {
+			throw new IllegalArgumentException("Profundidade inválida: " + depth + ", o perft aceita de " + minimum + " a " + (MAX_DEPTH - 1));
+		}
+	}
+}
\ No newline at end of file
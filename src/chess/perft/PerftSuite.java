@@ -0,0 +1,94 @@
+package chess.perft;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+
+public class PerftSuite {
+	
+	//posições de referência com a contagem de nós conhecida por profundidade
+	private static final String[] POSITIONS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+	};
+	
+	private static final String[] NAMES = {"Inicial", "Kiwipete", "Posição 3", "Posição 4", "Posição 5", "Posição 6"};
+	
+	private static final long[][] NODES = {
+		{20, 400, 8902, 197281, 4865609, 119060324},
+		{48, 2039, 97862, 4085603, 193690690},
+		{14, 191, 2812, 43238, 674624, 11030083},
+		{6, 264, 9467, 422333, 15833292},
+		{44, 1486, 62379, 2103487, 89941194},
+		{46, 2079, 89890, 3894594, 164075551}
+	};
+	
+	//partidas que terminam em mate e em afogamento, com os lances em pares de origem e destino
+	private static final String[][] FINAL_GAMES = {
+		{"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "f2", "f3", "e7", "e5", "g2", "g4", "d8", "h4"},
+		{"k7/8/2Q5/8/8/8/8/7K w - - 0 1", "c6", "b6"}
+	};
+	
+	//uso: PerftSuite [profundidade máxima] ou PerftSuite <profundidade> <fen> para o divide
+	public static void main(String[] args) {
+		if(args.length > 1) {
+			ChessMatch chessMatch = new ChessMatch(args[1]);
+			new Perft(chessMatch).divide(Integer.parseInt(args[0]), System.out);
+			return;
+		}
+		
+		int maxDepth = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+		long totalNodes = 0;
+		long totalNanos = 0;
+		boolean passed = true;
+		
+		for(int i = 0; i < POSITIONS.length; i++) {
+			Perft perft = new Perft(new ChessMatch(POSITIONS[i]));
+			
+			for(int depth = 1; depth <= Math.min(maxDepth, NODES[i].length); depth++) {
+				long start = System.nanoTime();
+				long nodes = perft.perft(depth);
+				long nanos = System.nanoTime() - start;
+				
+				totalNodes += nodes;
+				totalNanos += nanos;
+				passed &= nodes == NODES[i][depth - 1];
+				
+				System.out.printf("%-10s profundidade %d: %12d nós (esperado %12d) %8.1f ms %s%n", NAMES[i], depth, nodes, NODES[i][depth - 1], nanos / 1e6, nodes == NODES[i][depth - 1] ? "OK" : "FALHOU");
+			}
+		}
+		
+		for(String[] game : FINAL_GAMES) {
+			boolean ok = checkFinalPosition(game);
+			passed &= ok;
+			System.out.printf("FEN final   %s %s%n", game[0], ok ? "OK" : "FALHOU");
+		}
+		
+		System.out.println();
+		System.out.printf("Total: %d nós em %.1f ms, %.0f nós/s%n", totalNodes, totalNanos / 1e6, totalNodes / (totalNanos / 1e9));
+		System.out.println(passed ? "Todas as posições conferem" : "Há posições com contagem errada");
+	}
+	
+	//a posição final exportada e recarregada tem de dar o mesmo FEN, a mesma chave e o mesmo resultado
+	private static boolean checkFinalPosition(String[] game) {
+		ChessMatch chessMatch = new ChessMatch(game[0]);
+		
+		for(int i = 1; i < game.length; i += 2) {
+			chessMatch.performChessMove(position(game[i]), position(game[i + 1]));
+		}
+		
+		ChessMatch reloaded = new ChessMatch(chessMatch.toFen());
+		return (chessMatch.getCheckMate() || chessMatch.getStalemate())
+			&& reloaded.toFen().equals(chessMatch.toFen())
+			&& reloaded.getZobristKey() == chessMatch.getZobristKey()
+			&& reloaded.getCheckMate() == chessMatch.getCheckMate()
+			&& reloaded.getStalemate() == chessMatch.getStalemate();
+	}
+	
+	private static ChessPosition position(String square) {
+		return new ChessPosition(square.charAt(1) - '0', square.charAt(0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package chess.pgn;
+
+import java.util.Map;
+
+import chess.ChessMatch;
+
+public interface PgnListener {
+	
+	default void startGame(Map<String, String> tags, ChessMatch chessMatch) {
+	}
+	
+	//chamado depois de o lance ser aplicado à partida
+	default void move(ChessMatch chessMatch, int move) {
+	}
+	
+	default void endGame(ChessMatch chessMatch, String result) {
+	}
+	
+	default void skipGame(long game, String reason) {
+	}
+}
\ No newline at end of file
@@ -0,0 +1,386 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+public class PgnReader {
+	
+	public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int MAX_TOKEN = 256;
+	
+	private ChessMatch chessMatch;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private ReadableByteChannel channel;
+	private PgnListener listener;
+	
+	private byte[] token = new byte[MAX_TOKEN];
+	private int tokenLength;
+	private byte[] value = new byte[64];
+	private int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private Map<String, String> tags = new HashMap<>();
+	
+	//estado da partida sendo lida
+	private boolean inGame;
+	private boolean started;
+	private boolean skipping;
+	private boolean lineStart;
+	
+	private long games;
+	private long skipped;
+	private long moveCount;
+	private long bytes;
+	
+	public PgnReader(ChessMatch chessMatch) {
+		this.chessMatch = chessMatch;
+	}
+	
+	public PgnReport read(Path path, PgnListener listener) throws IOException {
+		try(FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(fileChannel, listener);
+		}
+	}
+	
+	//lê em blocos, sem carregar o arquivo inteiro; partidas com lances inválidos são puladas
+	public PgnReport read(ReadableByteChannel channel, PgnListener listener) throws IOException {
+		this.channel = channel;
+		this.listener = listener;
+		buffer.clear().flip();
+		games = 0;
+		skipped = 0;
+		moveCount = 0;
+		bytes = 0;
+		lineStart = true;
+		resetGame();
+		
+		long start = System.nanoTime();
+		int c;
+		
+		while((c = next()) != -1) {
+			boolean atLineStart = lineStart;
+			lineStart = c == '\n';
+			
+			switch(c) {
+			case ' ':
+			case '\t':
+			case '\r':
+			case '\n':
+			case '.':
+				break;
+			case '[':
+				if(started) {
+					endGame("*");
+				}
+				readTag();
+				break;
+			case '{':
+				skipUntil('}');
+				break;
+			case ';':
+				skipUntil('\n');
+				lineStart = true;
+				break;
+			case '(':
+				skipVariation();
+				break;
+			case '$':
+				readToken(c);
+				break;
+			case '%':
+				if(atLineStart) {
+					skipUntil('\n');
+					lineStart = true;
+					break;
+				}
+				
+				readToken(c);
+				movetext();
+				break;
+			default:
+				readToken(c);
+				movetext();
+			}
+		}
+		
+		if(inGame) {
+			endGame("*");
+		}
+		
+		return new PgnReport(games, skipped, moveCount, bytes, System.nanoTime() - start);
+	}
+	
+	private void movetext() {
+		if(isResult()) {
+			if(!started) {
+				startGame();
+			}
+			
+			endGame(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+			return;
+		}
+		
+		//número do lance
+		if(token[0] >= '0' && token[0] <= '9' && isNumber()) {
+			return;
+		}
+		
+		if(!started) {
+			startGame();
+		}
+		
+		if(skipping) {
+			return;
+		}
+		
+		int move = San.resolve(chessMatch, token, tokenLength, moves);
+		if(move == Move.NONE) {
+			skipGame("Lance inválido ou ambíguo: " + new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+			return;
+		}
+		
+		chessMatch.makeMove(move);
+		moveCount++;
+		listener.move(chessMatch, move);
+	}
+	
+	private void startGame() {
+		inGame = true;
+		started = true;
+		
+		String fen = tags.get("FEN");
+		try {
+			chessMatch.loadFen((fen != null) ? fen : START_FEN);
+		} catch(ChessException e) {
+			skipGame(e.getMessage());
+			return;
+		}
+		
+		listener.startGame(tags, chessMatch);
+	}
+	
+	private void endGame(String result) {
+		if(!skipping) {
+			games++;
+			listener.endGame(chessMatch, result);
+		}
+		
+		resetGame();
+	}
+	
+	private void skipGame(String reason) {
+		skipping = true;
+		skipped++;
+		listener.skipGame(games + skipped, reason);
+	}
+	
+	private void resetGame() {
+		inGame = false;
+		started = false;
+		skipping = false;
+		tags.clear();
+	}
+	
+	//[Nome "valor"]
+	private void readTag() throws IOException {
+		inGame = true;
+		
+		int c = next();
+		while(c == ' ' || c == '\t') {
+			c = next();
+		}
+		
+		tokenLength = 0;
+		while(c != -1 && c != ' ' && c != '\t' && c != '"' && c != ']' && c != '\n') {
+			append(c);
+			c = next();
+		}
+		String name = new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+		
+		while(c != -1 && c != '"' && c != ']' && c != '\n') {
+			c = next();
+		}
+		
+		if(c != '"') {
+			lineStart = c == '\n';
+			return;
+		}
+		
+		int length = 0;
+		
+		for(c = next(); c != -1 && c != '"' && c != '\n'; c = next()) {
+			if(c == '\\') {
+				c = next();
+			}
+			
+			if(length == value.length) {
+				value = Arrays.copyOf(value, length * 2);
+			}
+			value[length++] = (byte) c;
+		}
+		
+		tags.put(name, new String(value, 0, length, StandardCharsets.UTF_8));
+		
+		while(c != -1 && c != ']' && c != '\n') {
+			c = next();
+		}
+		lineStart = c == '\n';
+	}
+	
+	private void readToken(int first) throws IOException {
+		tokenLength = 0;
+		append(first);
+		
+		int c;
+		while((c = peek()) != -1 && !isDelimiter(c)) {
+			append(next());
+		}
+	}
+	
+	private void append(int c) {
+		//tokens maiores que o limite são truncados e não resolvem como lance
+		if(tokenLength < MAX_TOKEN) {
+			token[tokenLength++] = (byte) c;
+		}
+	}
+	
+	private void skipUntil(int end) throws IOException {
+		int c;
+		while((c = next()) != -1 && c != end) {
+		}
+	}
+	
+	//variações podem ter subvariações e comentários
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int c;
+		
+		while(depth > 0 && (c = next()) != -1) {
+			switch(c) {
+			case '(':
+				depth++;
+				break;
+			case ')':
+				depth--;
+				break;
+			case '{':
+				skipUntil('}');
+				break;
+			case ';':
+				skipUntil('\n');
+				break;
+			}
+		}
+	}
+	
+	private boolean isResult() {
+		return equals("1-0") || equals("0-1") || equals("1/2-1/2") || equals("*");
+	}
+	
+	private boolean isNumber() {
+		for(int i = 0; i < tokenLength; i++) {
+			if(token[i] < '0' || token[i] > '9') {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private boolean equals(String s) {
+		if(tokenLength != s.length()) {
+			return false;
+		}
+		
+		for(int i = 0; i < tokenLength; i++) {
+			if(token[i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean isDelimiter(int c) {
+		switch(c) {
+		case ' ':
+		case '\t':
+		case '\r':
+		case '\n':
+		case '.':
+		case '{':
+		case '}':
+		case '(':
+		case ')':
+		case '[':
+		case ']':
+		case ';':
+		case '$':
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	private int next() throws IOException {
+		if(!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		
+		return buffer.get() & 0xFF;
+	}
+	
+	private int peek() throws IOException {
+		if(!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+	
+	private boolean fill() throws IOException {
+		buffer.clear();
+		int read = 0;
+		
+		while(read == 0) {
+			read = channel.read(buffer);
+		}
+		buffer.flip();
+		
+		if(read < 0) {
+			return false;
+		}
+		
+		bytes += read;
+		return true;
+	}
+	
+	//uso: PgnReader <arquivo.pgn> [...]
+	public static void main(String[] args) throws IOException {
+		PgnReader reader = new PgnReader(new ChessMatch());
+		PgnListener listener = new PgnListener() {
+			@Override
+			public void skipGame(long game, String reason) {
+				System.err.println("Partida " + game + " ignorada: " + reason);
+			}
+		};
+		
+		for(String file : args) {
+			System.out.println(file + ": " + reader.read(Paths.get(file), listener));
+		}
+	}
+}
\ No newline at end of file
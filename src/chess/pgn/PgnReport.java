@@ -0,0 +1,55 @@
+package chess.pgn;
+
+public class PgnReport {
+	
+	private long games;
+	private long skipped;
+	private long moves;
+	private long bytes;
+	private long nanos;
+	
+	public PgnReport(long games, long skipped, long moves, long bytes, long nanos) {
+		this.games = games;
+		this.skipped = skipped;
+		this.moves = moves;
+		this.bytes = bytes;
+		this.nanos = nanos;
+	}
+	
+	public long getGames() {
+		return games;
+	}
+	
+	public long getSkipped() {
+		return skipped;
+	}
+	
+	public long getMoves() {
+		return moves;
+	}
+	
+	public long getBytes() {
+		return bytes;
+	}
+	
+	public long getNanos() {
+		return nanos;
+	}
+	
+	public double getGamesPerSecond() {
+		return games / seconds();
+	}
+	
+	public double getMovesPerSecond() {
+		return moves / seconds();
+	}
+	
+	private double seconds() {
+		return Math.max(nanos, 1) / 1e9;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d partidas (%d ignoradas), %d lances, %.1f MB em %.2f s: %.0f partidas/s, %.0f lances/s", games, skipped, moves, bytes / 1e6, seconds(), getGamesPerSecond(), getMovesPerSecond());
+	}
+}
\ No newline at end of file
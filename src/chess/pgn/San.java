@@ -0,0 +1,156 @@
+package chess.pgn;
+
+import chess.BitBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.PieceType;
+
+public class San {
+	
+	private static final String PIECES = "NBRQK";
+	
+	//resolve o lance em notação algébrica entre os lances legais da posição; NONE se inválido ou ambíguo
+	public static int resolve(ChessMatch chessMatch, String san) {
+		byte[] bytes = new byte[san.length()];
+		
+		for(int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) san.charAt(i);
+		}
+		
+		return resolve(chessMatch, bytes, bytes.length, new int[MoveGenerator.MAX_MOVES]);
+	}
+	
+	public static int resolve(ChessMatch chessMatch, byte[] san, int length, int[] moves) {
+		int end = length;
+		while(end > 0 && (san[end - 1] == '+' || san[end - 1] == '#' || san[end - 1] == '!' || san[end - 1] == '?')) {
+			end--;
+		}
+		
+		int count = chessMatch.generateLegalMoves(moves);
+		
+		int castling = castling(san, end);
+		if(castling != 0) {
+			for(int i = 0; i < count; i++) {
+				if(Move.flags(moves[i]) == castling) {
+					return moves[i];
+				}
+			}
+			
+			return Move.NONE;
+		}
+		
+		int start = 0;
+		PieceType type = PieceType.PAWN;
+		if(end > 0 && PIECES.indexOf(san[0]) >= 0) {
+			type = pieceType(san[0]);
+			start++;
+		}
+		
+		PieceType promotion = null;
+		if(end > 2 && PIECES.indexOf(san[end - 1]) >= 0 && san[end - 1] != 'K') {
+			promotion = pieceType(san[end - 1]);
+			end -= (san[end - 2] == '=') ? 2 : 1;
+		}
+		
+		if(end - start < 2 || !isFile(san[end - 2]) || !isRank(san[end - 1])) {
+			return Move.NONE;
+		}
+		
+		int to = square(san[end - 2], san[end - 1]);
+		int fromColumn = -1;
+		int fromRow = -1;
+		
+		//desambiguação por coluna e/ou fileira; 'x' e '-' são ignorados
+		for(int i = start; i < end - 2; i++) {
+			if(isFile(san[i])) {
+				fromColumn = san[i] - 'a';
+			} else if(isRank(san[i])) {
+				fromRow = '8' - san[i];
+			} else if(san[i] != 'x' && san[i] != '-' && san[i] != ':') {
+				return Move.NONE;
+			}
+		}
+		
+		int found = Move.NONE;
+		for(int i = 0; i < count; i++) {
+			int move = moves[i];
+			int from = Move.from(move);
+			
+			if(Move.to(move) != to || (fromColumn >= 0 && from % BitBoard.SIZE != fromColumn) || (fromRow >= 0 && from / BitBoard.SIZE != fromRow)) {
+				continue;
+			}
+			
+			ChessPiece piece = chessMatch.pieceAt(from);
+			if(piece.getType() != type) {
+				continue;
+			}
+			
+			//promoção sem a peça indicada vale como dama
+			if(Move.isPromotion(move) && Move.promotion(move) != ((promotion == null) ? PieceType.QUEEN : promotion)) {
+				continue;
+			}
+			
+			if(!Move.isPromotion(move) && promotion != null) {
+				continue;
+			}
+			
+			if(found != Move.NONE) {
+				return Move.NONE;
+			}
+			
+			found = move;
+		}
+		
+		return found;
+	}
+	
+	private static int castling(byte[] san, int length) {
+		if(length < 3 || (san[0] != 'O' && san[0] != '0')) {
+			return 0;
+		}
+		
+		for(int i = 1; i < length; i++) {
+			if(san[i] != ((i % 2 == 1) ? '-' : san[0])) {
+				return 0;
+			}
+		}
+		
+		switch(length) {
+		case 3:
+			return Move.KING_CASTLE;
+		case 5:
+			return Move.QUEEN_CASTLE;
+		default:
+			return 0;
+		}
+	}
+	
+	private static PieceType pieceType(byte letter) {
+		switch(letter) {
+		case 'N':
+			return PieceType.KNIGHT;
+		case 'B':
+			return PieceType.BISHOP;
+		case 'R':
+			return PieceType.ROOK;
+		case 'Q':
+			return PieceType.QUEEN;
+		default:
+			return PieceType.KING;
+		}
+	}
+	
+	private static boolean isFile(byte c) {
+		return c >= 'a' && c <= 'h';
+	}
+	
+	private static boolean isRank(byte c) {
+		return c >= '1' && c <= '8';
+	}
+	
+	private static int square(byte file, byte rank) {
+		return BitBoard.square('8' - rank, file - 'a');
+	}
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import boardgame.Board;
 import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Bishop extends ChessPiece {
 
@@ -11,6 +12,11 @@ public class Bishop extends ChessPiece {
 		super(board, color);
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.BISHOP;
+	}
+	
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean[][] moves = new boolean[getBoard().getRows()][getBoard().getColumns()];
@@ -5,6 +5,7 @@ import boardgame.Position;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class King extends ChessPiece {
 	
@@ -25,6 +26,11 @@ public class King extends ChessPiece {
 		return piece != null && piece instanceof Rook && piece.getColor() == getColor() && piece.getMoveCount() == 0;
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.KING;
+	}
+	
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean[][] moves = new boolean[getBoard().getRows()][getBoard().getColumns()];
@@ -79,7 +85,7 @@ public class King extends ChessPiece {
 		}
 		
 		//rook
-		if(getMoveCount() == 0 && !chessMatch.getCheck()) {
+		if(getMoveCount() == 0 && !chessMatch.inCheck()) {
 			//rook direito
 			Position posT1 = new Position(this.position.getRow(), this.position.getColumn() + 3);
 			if(testRookCastling(posT1)) {
@@ -4,6 +4,7 @@ import boardgame.Board;
 import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Knight extends ChessPiece {
 
@@ -16,6 +17,11 @@ public class Knight extends ChessPiece {
 		return piece == null || piece.getColor() != getColor();
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.KNIGHT;
+	}
+	
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean[][] moves = new boolean[getBoard().getRows()][getBoard().getColumns()];
@@ -4,6 +4,7 @@ import boardgame.Board;
 import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Queen extends ChessPiece {
 
@@ -11,6 +12,11 @@ public class Queen extends ChessPiece {
 		super(board, color);
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.QUEEN;
+	}
+	
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean[][] moves = new boolean[getBoard().getRows()][getBoard().getColumns()];
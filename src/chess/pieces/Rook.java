@@ -4,6 +4,7 @@ import boardgame.Board;
 import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Rook extends ChessPiece{
 
@@ -11,6 +12,11 @@ public class Rook extends ChessPiece{
 		super(board, color);
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.ROOK;
+	}
+	
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean[][] moves = new boolean[getBoard().getRows()][getBoard().getColumns()];
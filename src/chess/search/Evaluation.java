@@ -0,0 +1,113 @@
+package chess.search;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceSquareTables;
+import chess.PieceType;
+
+public class Evaluation {
+	
+	private static final int DOUBLED_MIDDLEGAME = -10;
+	private static final int DOUBLED_ENDGAME = -20;
+	private static final int ISOLATED_MIDDLEGAME = -10;
+	private static final int ISOLATED_ENDGAME = -15;
+	
+	//bônus do peão passado pela fileira, contada a partir do próprio lado
+	private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+	private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+	
+	private static final long FILE_A = 0x0101010101010101L;
+	private static final long FILE_H = FILE_A << 7;
+	
+	private PawnHashTable pawnHashTable;
+	
+	public Evaluation() {
+		this(new PawnHashTable());
+	}
+	
+	public Evaluation(PawnHashTable pawnHashTable) {
+		this.pawnHashTable = pawnHashTable;
+	}
+	
+	public PawnHashTable getPawnHashTable() {
+		return pawnHashTable;
+	}
+	
+	//o tabuleiro mantém material e tabelas de casas; a estrutura de peões vem da tabela
+	public int evaluate(ChessMatch chessMatch) {
+		long key = chessMatch.getPawnKey();
+		int index = pawnHashTable.find(key);
+		
+		if(index < 0) {
+			index = pawnStructure(chessMatch, key);
+		}
+		
+		int pawns = PieceSquareTables.taper(pawnHashTable.middlegame(index), pawnHashTable.endgame(index), chessMatch.getPhase());
+		return chessMatch.evaluate() + ((chessMatch.getSideToMove() == Color.WHITE) ? pawns : -pawns);
+	}
+	
+	private int pawnStructure(ChessMatch chessMatch, long key) {
+		long white = chessMatch.pieces(Color.WHITE, PieceType.PAWN);
+		long black = chessMatch.pieces(Color.BLACK, PieceType.PAWN);
+		
+		//as brancas avançam para a fileira 0, ou seja, para casas menores
+		long whiteSpan = attacks(northFill(white >>> 8));
+		long blackSpan = attacks(southFill(black << 8));
+		
+		int middlegame = 0;
+		int endgame = 0;
+		
+		for(int color = 0; color < 2; color++) {
+			boolean isWhite = color == Color.WHITE.ordinal();
+			long own = isWhite ? white : black;
+			long enemy = isWhite ? black : white;
+			int sign = isWhite ? 1 : -1;
+			long pawns = own;
+			
+			while(pawns != 0) {
+				int square = Long.numberOfTrailingZeros(pawns);
+				long bit = 1L << square;
+				long file = FILE_A << (square & 7);
+				long adjacent = ((file & ~FILE_H) << 1) | ((file & ~FILE_A) >>> 1);
+				long front = isWhite ? northFill(bit >>> 8) : southFill(bit << 8);
+				
+				if((front & own) != 0) {
+					middlegame += sign * DOUBLED_MIDDLEGAME;
+					endgame += sign * DOUBLED_ENDGAME;
+				}
+				
+				if((adjacent & own) == 0) {
+					middlegame += sign * ISOLATED_MIDDLEGAME;
+					endgame += sign * ISOLATED_ENDGAME;
+				}
+				
+				if(((front | attacks(front)) & enemy) == 0) {
+					int rank = isWhite ? 7 - (square >>> 3) : square >>> 3;
+					middlegame += sign * PASSED_MIDDLEGAME[rank];
+					endgame += sign * PASSED_ENDGAME[rank];
+				}
+				
+				pawns &= pawns - 1;
+			}
+		}
+		
+		return pawnHashTable.store(key, middlegame, endgame, whiteSpan, blackSpan);
+	}
+	
+	private static long northFill(long bits) {
+		bits |= bits >>> 8;
+		bits |= bits >>> 16;
+		return bits | (bits >>> 32);
+	}
+	
+	private static long southFill(long bits) {
+		bits |= bits << 8;
+		bits |= bits << 16;
+		return bits | (bits << 32);
+	}
+	
+	//desloca uma coluna para cada lado; aplicado às casas à frente dá o vão de ataque
+	private static long attacks(long bits) {
+		return ((bits & ~FILE_A) >>> 1) | ((bits & ~FILE_H) << 1);
+	}
+}
\ No newline at end of file
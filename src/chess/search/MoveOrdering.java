@@ -0,0 +1,133 @@
+package chess.search;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+public class MoveOrdering {
+	
+	private static final int HASH_MOVE = 2000000;
+	private static final int CAPTURE = 1000000;
+	private static final int FIRST_KILLER = 900000;
+	private static final int SECOND_KILLER = 800000;
+	private static final int MAX_HISTORY = 500000;
+	
+	private int[][] scores = new int[Search.MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+	private int[][] killers = new int[Search.MAX_PLY + 1][2];
+	
+	//tabela borboleta: origem x destino, por cor
+	private int[][][] history = new int[2][64][64];
+	
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	
+	//mantém a história pela metade entre buscas e esquece os killers, que dependem da posição
+	public void newSearch() {
+		for(int[][] colorHistory : history) {
+			for(int[] fromHistory : colorHistory) {
+				for(int to = 0; to < fromHistory.length; to++) {
+					fromHistory[to] /= 2;
+				}
+			}
+		}
+		
+		for(int[] plyKillers : killers) {
+			plyKillers[0] = Move.NONE;
+			plyKillers[1] = Move.NONE;
+		}
+		
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+	}
+	
+	public void score(ChessMatch chessMatch, int[] moves, int count, int ply, int hashMove) {
+		int[] plyScores = scores[ply];
+		int[][] colorHistory = history[chessMatch.getSideToMove().ordinal()];
+		
+		for(int i = 0; i < count; i++) {
+			int move = moves[i];
+			
+			if(move == hashMove) {
+				plyScores[i] = HASH_MOVE;
+			} else if(Move.isCapture(move)) {
+				plyScores[i] = CAPTURE + mvvLva(chessMatch, move);
+			} else if(Move.isPromotion(move)) {
+				plyScores[i] = CAPTURE + Move.promotion(move).ordinal();
+			} else if(move == killers[ply][0]) {
+				plyScores[i] = FIRST_KILLER;
+			} else if(move == killers[ply][1]) {
+				plyScores[i] = SECOND_KILLER;
+			} else {
+				plyScores[i] = colorHistory[Move.from(move)][Move.to(move)];
+			}
+		}
+	}
+	
+	//seleção parcial: traz o melhor lance restante para a posição index
+	public int next(int[] moves, int count, int index, int ply) {
+		int[] plyScores = scores[ply];
+		int best = index;
+		
+		for(int i = index + 1; i < count; i++) {
+			if(plyScores[i] > plyScores[best]) {
+				best = i;
+			}
+		}
+		
+		int move = moves[best];
+		moves[best] = moves[index];
+		moves[index] = move;
+		
+		int score = plyScores[best];
+		plyScores[best] = plyScores[index];
+		plyScores[index] = score;
+		
+		return move;
+	}
+	
+	public void cutoff(ChessMatch chessMatch, int move, int index, int ply, int depth) {
+		cutoffs++;
+		
+		if(index == 0) {
+			firstMoveCutoffs++;
+		}
+		
+		if(Move.isCapture(move) || Move.isPromotion(move)) {
+			return;
+		}
+		
+		if(killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		
+		int[] fromHistory = history[chessMatch.getSideToMove().ordinal()][Move.from(move)];
+		fromHistory[Move.to(move)] = Math.min(fromHistory[Move.to(move)] + depth * depth, MAX_HISTORY);
+	}
+	
+	public long getCutoffs() {
+		return cutoffs;
+	}
+	
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+	
+	//fração dos cortes beta feitos já no primeiro lance; perto de 1 significa boa ordenação
+	public double getFirstMoveCutoffRate() {
+		return (cutoffs == 0) ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+	}
+	
+	//vítima mais valiosa, atacante menos valioso
+	private static int mvvLva(ChessMatch chessMatch, int move) {
+		int victim = (Move.flags(move) == Move.EN_PASSANT) ? 0 : chessMatch.pieceAt(Move.to(move)).getType().ordinal();
+		int attacker = chessMatch.pieceAt(Move.from(move)).getType().ordinal();
+		
+		return victim * 8 + (7 - attacker);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d cortes, %.1f%% no primeiro lance", cutoffs, getFirstMoveCutoffRate() * 100);
+	}
+}
\ No newline at end of file
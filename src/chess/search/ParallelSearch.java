@@ -0,0 +1,133 @@
+package chess.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+public class ParallelSearch {
+	
+	private ExecutorService pool;
+	private TranspositionTable transpositionTable;
+	private OpeningBook book;
+	private Tablebase tablebase;
+	private int maxDepth = Search.MAX_PLY;
+	private long maxNodes = Long.MAX_VALUE;
+	private long timeLimit;
+	private long tablebaseHits;
+	
+	public ParallelSearch(TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+		pool = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "lazy-smp");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+	
+	public void setBook(OpeningBook book) {
+		this.book = book;
+	}
+	
+	//uma tablebase para todas as threads: a consulta só faz leituras absolutas no arquivo mapeado
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+	
+	//consultas resolvidas pela tablebase na última busca, somando todas as threads
+	public long getTablebaseHits() {
+		return tablebaseHits;
+	}
+	
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+	
+	public void setMaxNodes(long maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+	
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+	
+	//Lazy SMP: as auxiliares buscam a mesma raiz em cópias da partida e só se comunicam pela tabela
+	public SearchResult search(ChessMatch chessMatch, int threads) {
+		tablebaseHits = 0;
+		
+		SearchResult bookMove = Search.bookMove(book, chessMatch);
+		if(bookMove != null) {
+			return bookMove;
+		}
+		
+		Search main = new Search(chessMatch, transpositionTable);
+		main.setMaxDepth(maxDepth);
+		main.setMaxNodes(maxNodes);
+		main.setTimeLimit(timeLimit);
+		main.setTablebase(tablebase);
+		
+		transpositionTable.newSearch();
+		
+		List<Search> helpers = new ArrayList<>();
+		List<Future<SearchResult>> futures = new ArrayList<>();
+		for(int i = 1; i < threads; i++) {
+			Search helper = new Search(chessMatch.copy(), transpositionTable);
+			helper.setHelper(i);
+			helper.setTablebase(tablebase);
+			helpers.add(helper);
+			futures.add(pool.submit(helper::iterate));
+		}
+		
+		SearchResult result = main.iterate();
+		
+		long nodes = result.getNodes();
+		long hits = main.getTablebaseHits();
+		for(int i = 0; i < helpers.size(); i++) {
+			helpers.get(i).stop();
+			
+			try {
+				nodes += futures.get(i).get().getNodes();
+				hits += helpers.get(i).getTablebaseHits();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch(ExecutionException e) {
+				throw new IllegalStateException("Falha na thread auxiliar da busca", e.getCause());
+			}
+		}
+		
+		tablebaseHits = hits;
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, result.getNanos(), result.getPrincipalVariation());
+	}
+	
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+	
+	//uso: ParallelSearch <profundidade> [threads] [fen]
+	public static void main(String[] args) {
+		int depth = Integer.parseInt(args[0]);
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		ChessMatch chessMatch = (args.length > 2) ? new ChessMatch(args[2]) : new ChessMatch();
+		
+		ParallelSearch search = new ParallelSearch(new TranspositionTable(64));
+		search.setMaxDepth(depth);
+		
+		for(int n = 1; n <= threads; n *= 2) {
+			search.getTranspositionTable().clear();
+			SearchResult result = search.search(chessMatch, n);
+			System.out.printf("%2d threads: %s%n", n, result);
+		}
+		
+		search.shutdown();
+	}
+}
\ No newline at end of file
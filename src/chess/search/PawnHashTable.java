@@ -0,0 +1,92 @@
+package chess.search;
+
+import chess.Color;
+
+public class PawnHashTable {
+	
+	public static final int DEFAULT_SIZE = 1;
+	
+	//chave, notas de meio-jogo e final num int e os dois vãos de ataque
+	private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+	
+	private long[] keys;
+	private int[] scores;
+	private long[] spans;
+	private int mask;
+	
+	private long probes;
+	private long hits;
+	private long stores;
+	
+	public PawnHashTable() {
+		this(DEFAULT_SIZE);
+	}
+	
+	public PawnHashTable(int megabytes) {
+		int entries = (int) Long.highestOneBit(Math.max(1L, Math.min((long) megabytes * 1024 * 1024 / ENTRY_BYTES, 1 << 26)));
+		keys = new long[entries];
+		scores = new int[entries];
+		spans = new long[2 * entries];
+		mask = entries - 1;
+	}
+	
+	//índice da entrada com a chave, ou -1; uma entrada vazia já vale para a chave 0, sem peões
+	public int find(long key) {
+		probes++;
+		int index = (int) key & mask;
+		
+		if(keys[index] == key) {
+			hits++;
+			return index;
+		}
+		
+		return -1;
+	}
+	
+	//sobrescreve o que estiver na posição, mesmo de outra estrutura
+	public int store(long key, int middlegame, int endgame, long whiteSpan, long blackSpan) {
+		int index = (int) key & mask;
+		
+		keys[index] = key;
+		scores[index] = (middlegame << 16) + endgame;
+		spans[2 * index + Color.WHITE.ordinal()] = whiteSpan;
+		spans[2 * index + Color.BLACK.ordinal()] = blackSpan;
+		stores++;
+		
+		return index;
+	}
+	
+	public int middlegame(int index) {
+		return (scores[index] + 0x8000) >> 16;
+	}
+	
+	public int endgame(int index) {
+		return (short) scores[index];
+	}
+	
+	//casas que os peões da cor podem vir a atacar enquanto avançam
+	public long span(int index, Color color) {
+		return spans[2 * index + color.ordinal()];
+	}
+	
+	public long getProbes() {
+		return probes;
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getStores() {
+		return stores;
+	}
+	
+	public double getHitRate() {
+		return (probes == 0) ? 0.0 : (double) hits / probes;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d entradas, %d consultas, %.1f%% acertos, %d gravações", keys.length, probes, getHitRate() * 100, stores);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,433 @@
+package chess.search;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+public class Search {
+	
+	public static final int INFINITY = 32000;
+	public static final int MATE = 31000;
+	public static final int MAX_PLY = 64;
+	
+	private static final int ASPIRATION_WINDOW = 50;
+	private static final int CHECK_INTERVAL = 1023;
+	
+	//no Lazy SMP as auxiliares pulam profundidades em fases diferentes para não repetir a principal
+	private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+	private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+	
+	private ChessMatch chessMatch;
+	private TranspositionTable transpositionTable;
+	private MoveOrdering moveOrdering = new MoveOrdering();
+	private Evaluation evaluation = new Evaluation();
+	private StaticExchange staticExchange = new StaticExchange();
+	private Tablebase tablebase;
+	private OpeningBook book;
+	private int maxDepth = MAX_PLY;
+	private long maxNodes = Long.MAX_VALUE;
+	private long timeLimit;
+	
+	private int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+	private int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+	private int[] pvLength = new int[MAX_PLY + 1];
+	private long[] keys = new long[MAX_PLY + 1];
+	
+	private long nodes;
+	private long tablebaseHits;
+	private long deadline;
+	private int rootDepth;
+	private boolean stopped;
+	private volatile boolean aborted;
+	private int helper;
+	
+	public Search(ChessMatch chessMatch) {
+		this(chessMatch, new TranspositionTable());
+	}
+	
+	//a tabela pode ser compartilhada entre buscas e threads
+	public Search(ChessMatch chessMatch, TranspositionTable transpositionTable) {
+		this.chessMatch = chessMatch;
+		this.transpositionTable = transpositionTable;
+	}
+	
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+	
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY));
+	}
+	
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+	
+	public void setMaxNodes(long maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+	
+	//em milissegundos; zero não limita
+	public long getTimeLimit() {
+		return timeLimit;
+	}
+	
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+	
+	public Evaluation getEvaluation() {
+		return evaluation;
+	}
+	
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+	
+	//com poucas peças a nota vem da tablebase em vez da busca
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+	
+	public OpeningBook getBook() {
+		return book;
+	}
+	
+	//com livro, lances conhecidos da abertura são jogados sem busca
+	public void setBook(OpeningBook book) {
+		this.book = book;
+	}
+	
+	public long getTablebaseHits() {
+		return tablebaseHits;
+	}
+	
+	public MoveOrdering getMoveOrdering() {
+		return moveOrdering;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+	//interrompe a busca em andamento, de qualquer thread
+	public void stop() {
+		aborted = true;
+	}
+	
+	public SearchResult search() {
+		SearchResult bookMove = bookMove(book, chessMatch);
+		if(bookMove != null) {
+			return bookMove;
+		}
+		
+		aborted = false;
+		transpositionTable.newSearch();
+		return iterate();
+	}
+	
+	//lance sorteado do livro como resultado de busca, ou null sem livro ou fora dele
+	static SearchResult bookMove(OpeningBook book, ChessMatch chessMatch) {
+		if(book == null) {
+			return null;
+		}
+		
+		long start = System.nanoTime();
+		int move = book.pick(chessMatch, ThreadLocalRandom.current());
+		
+		return (move == Move.NONE) ? null : new SearchResult(move, 0, 0, 0, System.nanoTime() - start, new int[] {move});
+	}
+	
+	//índice da thread auxiliar no Lazy SMP; zero é a busca principal
+	void setHelper(int helper) {
+		this.helper = helper;
+	}
+	
+	//aprofundamento iterativo; a primeira iteração sempre termina para haver um lance
+	SearchResult iterate() {
+		long start = System.nanoTime();
+		deadline = (timeLimit > 0) ? start + timeLimit * 1000000 : Long.MAX_VALUE;
+		nodes = 0;
+		tablebaseHits = 0;
+		stopped = false;
+		moveOrdering.newSearch();
+		
+		int bestMove = Move.NONE;
+		int bestScore = 0;
+		int completedDepth = 0;
+		int[] principalVariation = new int[0];
+		
+		for(rootDepth = 1; rootDepth <= maxDepth; rootDepth++) {
+			if(helper > 0 && ((rootDepth + SKIP_PHASE[(helper - 1) % SKIP_PHASE.length]) / SKIP_SIZE[(helper - 1) % SKIP_SIZE.length]) % 2 != 0) {
+				continue;
+			}
+			
+			int score = aspiration(rootDepth, bestScore);
+			
+			if(stopped) {
+				break;
+			}
+			
+			bestScore = score;
+			completedDepth = rootDepth;
+			principalVariation = Arrays.copyOf(pv[0], pvLength[0]);
+			bestMove = (principalVariation.length > 0) ? principalVariation[0] : Move.NONE;
+			
+			//mate encontrado, aprofundar não muda o lance
+			if(Math.abs(score) >= MATE - rootDepth) {
+				break;
+			}
+		}
+		
+		return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - start, principalVariation);
+	}
+	
+	//janela estreita em volta da nota anterior, alargada quando a nota cai fora dela
+	private int aspiration(int depth, int previous) {
+		if(depth < 4) {
+			return negamax(depth, 0, -INFINITY, INFINITY);
+		}
+		
+		int delta = ASPIRATION_WINDOW;
+		int alpha = Math.max(previous - delta, -INFINITY);
+		int beta = Math.min(previous + delta, INFINITY);
+		
+		while(true) {
+			int score = negamax(depth, 0, alpha, beta);
+			
+			if(stopped) {
+				return score;
+			}
+			
+			if(score <= alpha) {
+				alpha = Math.max(score - delta, -INFINITY);
+			} else if(score >= beta) {
+				beta = Math.min(score + delta, INFINITY);
+			} else {
+				return score;
+			}
+			
+			delta *= 2;
+		}
+	}
+	
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		if(depth == 0) {
+			return quiescence(ply, alpha, beta);
+		}
+		
+		pvLength[ply] = 0;
+		
+		if(shouldStop()) {
+			return 0;
+		}
+		
+		nodes++;
+		long key = chessMatch.getZobristKey();
+		keys[ply] = key;
+		
+		if(ply > 0 && isDraw(ply)) {
+			return 0;
+		}
+		
+		if(ply > 0 && tablebase != null) {
+			int value = tablebase.probe(chessMatch);
+			
+			if(value != Tablebase.NOT_FOUND) {
+				tablebaseHits++;
+				return tablebaseScore(value, ply);
+			}
+		}
+		
+		//na raiz a tabela só sugere o lance, para que sempre haja variação principal
+		long entry = transpositionTable.probe(key);
+		int hashMove = TranspositionTable.move(entry);
+		if(entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+			int score = TranspositionTable.score(entry, ply);
+			int bound = TranspositionTable.bound(entry);
+			
+			if(bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta) || (bound == TranspositionTable.UPPER && score <= alpha)) {
+				return score;
+			}
+		}
+		
+		int[] buffer = moves[ply];
+		int count = chessMatch.generateLegalMoves(buffer);
+		
+		if(count == 0) {
+			return chessMatch.inCheck() ? -MATE + ply : 0;
+		}
+		
+		if(ply == MAX_PLY) {
+			return evaluation.evaluate(chessMatch);
+		}
+		
+		moveOrdering.score(chessMatch, buffer, count, ply, hashMove);
+		
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		
+		for(int i = 0; i < count; i++) {
+			int move = moveOrdering.next(buffer, count, i, ply);
+			chessMatch.makeMove(move);
+			int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			chessMatch.unmakeMove();
+			
+			if(stopped) {
+				return 0;
+			}
+			
+			if(score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				
+				if(score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					
+					if(score >= beta) {
+						moveOrdering.cutoff(chessMatch, move, i, ply, depth);
+						break;
+					}
+				}
+			}
+		}
+		
+		int bound = (bestScore >= beta) ? TranspositionTable.LOWER : (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		transpositionTable.store(key, bestMove, bestScore, depth, bound, ply);
+		
+		return bestScore;
+	}
+	
+	//só capturas e promoções, até a posição ficar quieta; em xeque todas as defesas são buscadas
+	private int quiescence(int ply, int alpha, int beta) {
+		pvLength[ply] = 0;
+		
+		if(shouldStop()) {
+			return 0;
+		}
+		
+		nodes++;
+		
+		if(ply == MAX_PLY) {
+			return evaluation.evaluate(chessMatch);
+		}
+		
+		int[] buffer = moves[ply];
+		int count;
+		int bestScore = -INFINITY;
+		
+		if(chessMatch.inCheck()) {
+			count = chessMatch.generateLegalMoves(buffer);
+			
+			if(count == 0) {
+				return -MATE + ply;
+			}
+		} else {
+			//sem xeque, o jogador pode parar de trocar e ficar com a avaliação estática, antes de gerar qualquer lance
+			bestScore = evaluation.evaluate(chessMatch);
+			
+			if(bestScore >= beta) {
+				return bestScore;
+			}
+			
+			alpha = Math.max(alpha, bestScore);
+			
+			//capturas que perdem material pela troca saem antes da ordenação
+			int generated = chessMatch.generateLegalCaptures(buffer);
+			count = 0;
+			
+			for(int i = 0; i < generated; i++) {
+				if(staticExchange.evaluate(chessMatch, buffer[i]) >= 0) {
+					buffer[count++] = buffer[i];
+				}
+			}
+		}
+		
+		moveOrdering.score(chessMatch, buffer, count, ply, Move.NONE);
+		
+		for(int i = 0; i < count; i++) {
+			int move = moveOrdering.next(buffer, count, i, ply);
+			chessMatch.makeMove(move);
+			int score = -quiescence(ply + 1, -beta, -alpha);
+			chessMatch.unmakeMove();
+			
+			if(stopped) {
+				return 0;
+			}
+			
+			if(score > bestScore) {
+				bestScore = score;
+				
+				if(score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					
+					if(score >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		
+		return bestScore;
+	}
+	
+	private static int tablebaseScore(int value, int ply) {
+		switch(Tablebase.wdl(value)) {
+		case Tablebase.WIN:
+			return MATE - ply - Tablebase.dtm(value);
+		case Tablebase.LOSS:
+			return -MATE + ply + Tablebase.dtm(value);
+		default:
+			return 0;
+		}
+	}
+	
+	private void updatePrincipalVariation(int ply, int move) {
+		pv[ply][0] = move;
+		System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+	
+	//regra dos cinquenta lances e repetição dentro do caminho da busca
+	private boolean isDraw(int ply) {
+		int halfMoves = chessMatch.getHalfMoveClock();
+		
+		if(halfMoves >= 100) {
+			return true;
+		}
+		
+		for(int i = ply - 4; i >= 0 && i >= ply - halfMoves; i -= 2) {
+			if(keys[i] == keys[ply]) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private boolean shouldStop() {
+		if(stopped) {
+			return true;
+		}
+		
+		if(aborted) {
+			stopped = true;
+		} else if(rootDepth > 1 && (nodes >= maxNodes || ((nodes & CHECK_INTERVAL) == 0 && System.nanoTime() >= deadline))) {
+			stopped = true;
+		}
+		
+		return stopped;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package chess.search;
+
+import chess.Move;
+
+public class SearchResult {
+	
+	private int bestMove;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long nanos;
+	private int[] principalVariation;
+	
+	public SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int[] principalVariation) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.nanos = nanos;
+		this.principalVariation = principalVariation;
+	}
+	
+	public int getBestMove() {
+		return bestMove;
+	}
+	
+	//centipeões do ponto de vista de quem joga; mates ficam perto de Search.MATE
+	public int getScore() {
+		return score;
+	}
+	
+	public int getDepth() {
+		return depth;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+	public long getNanos() {
+		return nanos;
+	}
+	
+	public int[] getPrincipalVariation() {
+		return principalVariation;
+	}
+	
+	public boolean isMate() {
+		return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("profundidade ").append(depth);
+		
+		if(isMate()) {
+			int plies = Search.MATE - Math.abs(score);
+			sb.append(" mate ").append((score > 0) ? (plies + 1) / 2 : -(plies / 2));
+		} else {
+			sb.append(" pontos ").append(score);
+		}
+		
+		sb.append(" nós ").append(nodes).append(" tempo ").append(nanos / 1000000).append(" ms pv");
+		for(int move : principalVariation) {
+			sb.append(' ').append(Move.toString(move));
+		}
+		
+		return sb.toString();
+	}
+}
\ No newline at end of file
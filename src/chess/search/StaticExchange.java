@@ -0,0 +1,66 @@
+package chess.search;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+public class StaticExchange {
+	
+	public static final int[] VALUES = {100, 320, 330, 500, 900, 20000};
+	
+	private static final PieceType[] TYPES = PieceType.values();
+	
+	private int[] gain = new int[32];
+	
+	//saldo material da troca na casa de destino, com cada lado recapturando com a peça de menor valor;
+	//usa só os atacantes da casa, sem jogar os lances
+	public int evaluate(ChessMatch chessMatch, int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		Color side = chessMatch.getSideToMove();
+		
+		gain[0] = (Move.flags(move) == Move.EN_PASSANT) ? VALUES[0] : (chessMatch.pieceAt(to) == null) ? 0 : VALUES[chessMatch.pieceAt(to).getType().ordinal()];
+		int attackerValue = VALUES[chessMatch.pieceAt(from).getType().ordinal()];
+		
+		if(Move.isPromotion(move)) {
+			int promotion = VALUES[Move.promotion(move).ordinal()];
+			gain[0] += promotion - VALUES[0];
+			attackerValue = promotion;
+		}
+		
+		long occupied = chessMatch.getOccupied();
+		if(Move.flags(move) == Move.EN_PASSANT) {
+			occupied ^= 1L << ((from & ~7) | (to & 7));
+		}
+		
+		long fromBit = 1L << from;
+		int depth = 0;
+		
+		do {
+			depth++;
+			gain[depth] = attackerValue - gain[depth - 1];
+			occupied ^= fromBit;
+			side = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+			
+			long attackers = chessMatch.attackersTo(to, side, occupied);
+			fromBit = 0L;
+			
+			for(PieceType type : TYPES) {
+				long pieces = attackers & chessMatch.pieces(side, type);
+				
+				if(pieces != 0) {
+					fromBit = pieces & -pieces;
+					attackerValue = VALUES[type.ordinal()];
+					break;
+				}
+			}
+		} while(fromBit != 0 && depth < gain.length - 1);
+		
+		while(--depth > 0) {
+			gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+		}
+		
+		return gain[0];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package chess.search;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranspositionTable {
+	
+	public static final int LOWER = 1;
+	public static final int UPPER = 2;
+	public static final int EXACT = 3;
+	
+	public static final int DEFAULT_SIZE = 16;
+	
+	//cada balde tem duas entradas: uma preferida por profundidade e outra sempre substituída
+	private static final int BUCKET = 4;
+	
+	private long[] table;
+	private long mask;
+	private int age;
+	
+	private LongAdder probes = new LongAdder();
+	private LongAdder hits = new LongAdder();
+	private LongAdder stores = new LongAdder();
+	
+	public TranspositionTable() {
+		this(DEFAULT_SIZE);
+	}
+	
+	public TranspositionTable(int megabytes) {
+		long buckets = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / (BUCKET * Long.BYTES)));
+		buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET));
+		table = new long[(int) (buckets * BUCKET)];
+		mask = buckets - 1;
+	}
+	
+	public int getSize() {
+		return (int) ((long) table.length * Long.BYTES / (1024 * 1024));
+	}
+	
+	//nova busca: entradas antigas passam a ser substituídas primeiro
+	public void newSearch() {
+		age = (age + 1) & 0xFF;
+	}
+	
+	public void clear() {
+		Arrays.fill(table, 0L);
+		age = 0;
+		probes.reset();
+		hits.reset();
+		stores.reset();
+	}
+	
+	//a chave é guardada como chave ^ dados, então uma escrita pela metade de outra thread não confere
+	public long probe(long key) {
+		probes.increment();
+		int index = (int) (key & mask) * BUCKET;
+		
+		for(int slot = index; slot < index + BUCKET; slot += 2) {
+			long data = table[slot + 1];
+			
+			if((table[slot] ^ data) == key && data != 0) {
+				hits.increment();
+				return data;
+			}
+		}
+		
+		return 0L;
+	}
+	
+	public void store(long key, int move, int score, int depth, int bound, int ply) {
+		int index = (int) (key & mask) * BUCKET;
+		long deep = table[index + 1];
+		int slot = index + 2;
+		
+		if((table[index] ^ deep) == key || depth >= depth(deep) || age(deep) != age) {
+			slot = index;
+			
+			//sem lance novo, mantém o que já estava guardado para a posição
+			if(move == 0 && (table[index] ^ deep) == key) {
+				move = move(deep);
+			}
+		}
+		
+		long data = (move & 0xFFFFL)
+			| ((long) (toTable(score, ply) & 0xFFFF) << 16)
+			| ((long) (depth & 0xFF) << 32)
+			| ((long) bound << 40)
+			| ((long) age << 42);
+		
+		table[slot] = key ^ data;
+		table[slot + 1] = data;
+		stores.increment();
+	}
+	
+	public long getProbes() {
+		return probes.sum();
+	}
+	
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	public long getStores() {
+		return stores.sum();
+	}
+	
+	public double getHitRate() {
+		long total = probes.sum();
+		return (total == 0) ? 0.0 : (double) hits.sum() / total;
+	}
+	
+	//ocupação por mil, estimada nos primeiros baldes
+	public int hashfull() {
+		int sampled = (int) Math.min(1000, (mask + 1) * 2);
+		int used = 0;
+		
+		for(int i = 0; i < sampled; i++) {
+			long data = table[(i / 2) * BUCKET + (i % 2) * 2 + 1];
+			
+			if(data != 0 && age(data) == age) {
+				used++;
+			}
+		}
+		
+		return used * 1000 / sampled;
+	}
+	
+	public static int move(long data) {
+		return (int) (data & 0xFFFF);
+	}
+	
+	//notas de mate são guardadas relativas ao nó e voltam relativas à raiz
+	public static int score(long data, int ply) {
+		int score = (short) (data >>> 16);
+		
+		if(score >= Search.MATE - Search.MAX_PLY) {
+			return score - ply;
+		}
+		
+		if(score <= -Search.MATE + Search.MAX_PLY) {
+			return score + ply;
+		}
+		
+		return score;
+	}
+	
+	public static int depth(long data) {
+		return (int) ((data >>> 32) & 0xFF);
+	}
+	
+	public static int bound(long data) {
+		return (int) ((data >>> 40) & 0x3);
+	}
+	
+	private static int age(long data) {
+		return (int) ((data >>> 42) & 0xFF);
+	}
+	
+	private static int toTable(int score, int ply) {
+		if(score >= Search.MATE - Search.MAX_PLY) {
+			return score + ply;
+		}
+		
+		if(score <= -Search.MATE + Search.MAX_PLY) {
+			return score - ply;
+		}
+		
+		return score;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d MB, %d consultas, %.1f%% acertos, %d gravações, ocupação %d/1000", getSize(), getProbes(), getHitRate() * 100, getStores(), hashfull());
+	}
+}
\ No newline at end of file
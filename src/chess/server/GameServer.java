@@ -0,0 +1,177 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import chess.ChessException;
+import chess.journal.Journal;
+
+//protocolo de texto, uma linha por comando:
+//NEW [fen] -> OK <id> | MOVE <id> <lance> -> OK <fen> | FEN <id> -> OK <fen> | CLOSE <id> -> OK | QUIT
+public class GameServer {
+	
+	public static final int DEFAULT_PORT = 7777;
+	
+	//sem threads virtuais, cada conexão fica numa thread de plataforma com pilha pequena
+	private static final long STACK_SIZE = 256 * 1024;
+	
+	private SessionRegistry registry;
+	private ExecutorService executor = newExecutor("partida");
+	private ServerSocket serverSocket;
+	
+	public GameServer() {
+		this(new SessionRegistry());
+	}
+	
+	public GameServer(SessionRegistry registry) {
+		this.registry = registry;
+	}
+	
+	public SessionRegistry getRegistry() {
+		return registry;
+	}
+	
+	public void start(int port) throws IOException {
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		
+		Thread acceptor = new Thread(this::accept, "servidor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+	
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	public void stop() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+	
+	//threads virtuais quando o Java as tiver (21+), senão uma thread de plataforma por tarefa
+	static ExecutorService newExecutor(String name) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(null, runnable, name, STACK_SIZE);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	private void accept() {
+		while(!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				executor.execute(() -> serve(socket));
+			} catch(IOException e) {
+				if(!serverSocket.isClosed()) {
+					System.err.println("Falha ao aceitar conexão: " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	//as partidas criadas pela conexão são encerradas quando ela fecha
+	private void serve(Socket socket) {
+		List<Long> created = new ArrayList<>();
+		
+		try(Socket client = socket;
+			BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
+			client.setTcpNoDelay(true);
+			String line;
+			
+			while((line = in.readLine()) != null) {
+				if(line.trim().equals("QUIT")) {
+					break;
+				}
+				
+				out.println(handle(line.trim(), created));
+			}
+		} catch(IOException e) {
+			//conexão perdida: só resta liberar as partidas
+		} finally {
+			for(long id : created) {
+				registry.remove(id);
+			}
+		}
+	}
+	
+	private String handle(String line, List<Long> created) {
+		String[] parts = line.split(" ", 3);
+		
+		try {
+			switch(parts[0]) {
+			case "NEW":
+				GameSession session = registry.create((parts.length > 1) ? line.substring(4) : null);
+				created.add(session.getId());
+				return "OK " + session.getId();
+			case "MOVE":
+				if(parts.length < 3) {
+					return "ERR Uso: MOVE <id> <lance>";
+				}
+				return "OK " + registry.get(Long.parseLong(parts[1])).move(parts[2]);
+			case "FEN":
+				return "OK " + registry.get(Long.parseLong(parts[1])).getFen();
+			case "CLOSE":
+				long id = Long.parseLong(parts[1]);
+				created.remove(id);
+				return registry.remove(id) ? "OK" : "ERR Partida inexistente: " + id;
+			default:
+				return "ERR Comando desconhecido: " + parts[0];
+			}
+		} catch(ChessException e) {
+			return "ERR " + e.getMessage();
+		} catch(NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			return "ERR Comando inválido: " + line;
+		} catch(RuntimeException e) {
+			//qualquer outra falha vira resposta, sem derrubar a conexão
+			return "ERR Erro interno: " + e;
+		}
+	}
+	
+	//uso: GameServer [porta] [diretório do journal]
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Journal journal = null;
+		SessionRegistry registry;
+		
+		if(args.length > 1) {
+			long start = System.nanoTime();
+			journal = new Journal(Paths.get(args[1]));
+			registry = new SessionRegistry(journal);
+			System.out.printf("%d partidas recuperadas do journal em %.1f s%n", registry.size(), (System.nanoTime() - start) / 1e9);
+		} else {
+			registry = new SessionRegistry();
+		}
+		
+		GameServer server = new GameServer(registry);
+		server.start((args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+		System.out.println("Servidor ouvindo na porta " + server.getPort());
+		
+		while(true) {
+			Thread.sleep(10000);
+			System.out.println(server.getRegistry().size() + " partidas abertas");
+			
+			if(journal != null) {
+				journal.compact();
+			}
+		}
+	}
+}
\ No newline at end of file
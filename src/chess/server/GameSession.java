@@ -0,0 +1,101 @@
+package chess.server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.journal.Journal;
+
+//uma partida hospedada; os lances de uma mesma partida são aplicados um de cada vez
+public class GameSession {
+	
+	private long id;
+	private ChessMatch chessMatch;
+	private Journal journal;
+	private long moves;
+	
+	public GameSession(long id, ChessMatch chessMatch) {
+		this(id, chessMatch, null);
+	}
+	
+	//com journal, cada lance aceito é gravado antes da resposta
+	public GameSession(long id, ChessMatch chessMatch, Journal journal) {
+		this.id = id;
+		this.chessMatch = chessMatch;
+		this.journal = journal;
+	}
+	
+	public long getId() {
+		return id;
+	}
+	
+	public synchronized long getMoves() {
+		return moves;
+	}
+	
+	public synchronized String getFen() {
+		return chessMatch.toFen();
+	}
+	
+	public synchronized boolean isOver() {
+		return chessMatch.getCheckMate() || chessMatch.getStalemate();
+	}
+	
+	//lance no formato e2e4 ou e7e8q; devolve a FEN da posição resultante
+	public String move(String move) {
+		String fen;
+		long sequence = 0;
+		
+		synchronized(this) {
+			if(isOver()) {
+				throw new ChessException("A partida já terminou");
+			}
+			
+			if((move.length() != 4 && move.length() != 5) || (move.length() == 5 && "nbrq".indexOf(move.charAt(4)) < 0)) {
+				throw new ChessException("Lance inválido: " + move);
+			}
+			
+			ChessPosition source = position(move, 0);
+			ChessPosition target = position(move, 2);
+			chessMatch.performChessMove(source, target);
+			
+			if(chessMatch.getPromoted() == null && move.length() == 5) {
+				chessMatch.unmakeMove();
+				throw new ChessException("O lance não é uma promoção: " + move);
+			}
+			
+			char type = 0;
+			if(chessMatch.getPromoted() != null) {
+				type = (move.length() == 5) ? Character.toUpperCase(move.charAt(4)) : 'Q';
+				chessMatch.replacePromotedPiece(String.valueOf(type));
+			}
+			
+			//se a gravação falha, a partida volta ao estado anterior para não divergir do journal
+			if(journal != null) {
+				try {
+					sequence = journal.move(id, square(move, 0), square(move, 2), type);
+				} catch(RuntimeException e) {
+					chessMatch.unmakeMove();
+					throw e;
+				}
+			}
+			
+			moves++;
+			fen = chessMatch.toFen();
+		}
+		
+		//a espera pelo disco fica fora do bloqueio, junto com a das outras partidas
+		if(journal != null) {
+			journal.sync(sequence);
+		}
+		
+		return fen;
+	}
+	
+	private static ChessPosition position(String move, int index) {
+		return new ChessPosition(move.charAt(index + 1) - '0', move.charAt(index));
+	}
+	
+	private static int square(String move, int index) {
+		return ('8' - move.charAt(index + 1)) * 8 + (move.charAt(index) - 'a');
+	}
+}
\ No newline at end of file
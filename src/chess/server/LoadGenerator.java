@@ -0,0 +1,152 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+//clientes que jogam partidas aleatórias contra o servidor e medem a latência de cada lance
+public class LoadGenerator {
+	
+	private static final int MAX_PLIES = 200;
+	
+	private String host;
+	private int port;
+	
+	public LoadGenerator(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+	
+	//latências em nanossegundos, ordenadas
+	public long[] run(int clients, int games) throws InterruptedException {
+		ExecutorService executor = GameServer.newExecutor("carga");
+		List<Future<long[]>> futures = new ArrayList<>();
+		
+		for(int i = 0; i < clients; i++) {
+			futures.add(executor.submit(() -> play(games)));
+		}
+		
+		long[][] results = new long[clients][];
+		int total = 0;
+		for(int i = 0; i < clients; i++) {
+			try {
+				results[i] = futures.get(i).get();
+				total += results[i].length;
+			} catch(ExecutionException e) {
+				throw new IllegalStateException("Falha no cliente de carga", e.getCause());
+			}
+		}
+		executor.shutdown();
+		
+		long[] latencies = new long[total];
+		for(int i = 0, position = 0; i < clients; i++) {
+			System.arraycopy(results[i], 0, latencies, position, results[i].length);
+			position += results[i].length;
+		}
+		
+		Arrays.sort(latencies);
+		return latencies;
+	}
+	
+	//os lances saem de uma cópia local da partida, então todos são legais
+	private long[] play(int games) throws IOException {
+		long[] latencies = new long[games * MAX_PLIES];
+		int count = 0;
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		
+		try(Socket socket = new Socket(host, port);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+			socket.setTcpNoDelay(true);
+			
+			for(int game = 0; game < games; game++) {
+				ChessMatch chessMatch = new ChessMatch();
+				String id = request(in, out, "NEW").substring(3);
+				
+				for(int ply = 0; ply < MAX_PLIES; ply++) {
+					int legal = chessMatch.generateLegalMoves(moves);
+					if(legal == 0 || chessMatch.getHalfMoveClock() >= 100) {
+						break;
+					}
+					
+					int move = moves[random.nextInt(legal)];
+					long start = System.nanoTime();
+					request(in, out, "MOVE " + id + " " + Move.toString(move));
+					latencies[count++] = System.nanoTime() - start;
+					
+					chessMatch.makeMove(move);
+				}
+				
+				request(in, out, "CLOSE " + id);
+			}
+			
+			out.println("QUIT");
+		}
+		
+		return Arrays.copyOf(latencies, count);
+	}
+	
+	private static String request(BufferedReader in, PrintWriter out, String command) throws IOException {
+		out.println(command);
+		String response = in.readLine();
+		
+		if(response == null || !response.startsWith("OK")) {
+			throw new IOException("Resposta inesperada para " + command + ": " + response);
+		}
+		
+		return response;
+	}
+	
+	private static double percentile(long[] sorted, double fraction) {
+		if(sorted.length == 0) {
+			return 0.0;
+		}
+		
+		return sorted[(int) Math.min(sorted.length - 1, (long) (fraction * sorted.length))] / 1e3;
+	}
+	
+	//uso: LoadGenerator [clientes] [partidas por cliente] [porta]; sem porta, sobe um servidor local
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		int games = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		GameServer server = null;
+		int port;
+		
+		if(args.length > 2) {
+			port = Integer.parseInt(args[2]);
+		} else {
+			server = new GameServer();
+			server.start(0);
+			port = server.getPort();
+		}
+		
+		LoadGenerator generator = new LoadGenerator(InetAddress.getLoopbackAddress().getHostAddress(), port);
+		long start = System.nanoTime();
+		long[] latencies = generator.run(clients, games);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.printf("%d clientes, %d partidas, %d lances em %.1f s: %.0f lances/s%n", clients, clients * games, latencies.length, seconds, latencies.length / seconds);
+		System.out.printf("latência p50 %.0f µs, p99 %.0f µs, máxima %.0f µs%n", percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+		
+		if(server != null) {
+			server.stop();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package chess.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.journal.Journal;
+
+public class SessionRegistry {
+	
+	private ConcurrentMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+	private AtomicLong nextId = new AtomicLong(1);
+	private Journal journal;
+	
+	public SessionRegistry() {
+	}
+	
+	//as partidas abertas no journal voltam com os mesmos ids
+	public SessionRegistry(Journal journal) {
+		this.journal = journal;
+		
+		for(Map.Entry<Long, ChessMatch> entry : journal.recover().entrySet()) {
+			sessions.put(entry.getKey(), new GameSession(entry.getKey(), entry.getValue(), journal));
+		}
+		nextId.set(journal.getLastGame() + 1);
+	}
+	
+	public GameSession create(String fen) {
+		ChessMatch chessMatch = (fen == null) ? new ChessMatch() : new ChessMatch(fen);
+		GameSession session = new GameSession(nextId.getAndIncrement(), chessMatch, journal);
+		
+		if(journal != null) {
+			journal.sync(journal.create(session.getId(), fen));
+		}
+		
+		sessions.put(session.getId(), session);
+		return session;
+	}
+	
+	public GameSession get(long id) {
+		GameSession session = sessions.get(id);
+		
+		if(session == null) {
+			throw new ChessException("Partida inexistente: " + id);
+		}
+		
+		return session;
+	}
+	
+	public boolean remove(long id) {
+		if(sessions.remove(id) == null) {
+			return false;
+		}
+		
+		if(journal != null) {
+			journal.sync(journal.remove(id));
+		}
+		
+		return true;
+	}
+	
+	public int size() {
+		return sessions.size();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessMatch;
+
+public class Tablebase {
+	
+	public static final int LOSS = -1;
+	public static final int DRAW = 0;
+	public static final int WIN = 1;
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+	
+	public static final int NOT_FOUND = -1;
+	
+	//arrays paralelos, percorridos em ordem para não criar objetos na consulta
+	private long[] signatures;
+	private int[][] codes;
+	private MappedByteBuffer[] data;
+	private int maxPieces;
+	
+	public Tablebase(Path directory) throws IOException {
+		List<int[]> fileCodes = new ArrayList<>();
+		List<MappedByteBuffer> buffers = new ArrayList<>();
+		
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TablebaseFormat.EXTENSION)) {
+			for(Path file : files) {
+				try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					fileCodes.add(readHeader(file, buffer, channel.size()));
+					buffers.add(buffer);
+				}
+			}
+		}
+		
+		signatures = new long[fileCodes.size()];
+		codes = fileCodes.toArray(new int[0][]);
+		data = buffers.toArray(new MappedByteBuffer[0]);
+		
+		for(int i = 0; i < codes.length; i++) {
+			signatures[i] = TablebaseFormat.signature(codes[i]);
+			maxPieces = Math.max(maxPieces, codes[i].length);
+		}
+	}
+	
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+	
+	public int getTableCount() {
+		return codes.length;
+	}
+	
+	//byte guardado para a posição, ou NOT_FOUND se não houver tabela ou a posição não couber no formato
+	public int probe(ChessMatch chessMatch) {
+		long occupied = chessMatch.getOccupied();
+		
+		if(Long.bitCount(occupied) > maxPieces || chessMatch.getCastlingRights() != 0 || chessMatch.getEnPassantVulnerable() != null) {
+			return NOT_FOUND;
+		}
+		
+		long signature = TablebaseFormat.signature(chessMatch);
+		
+		for(int table = 0; table < signatures.length; table++) {
+			//a mesma tabela serve com as cores trocadas e o tabuleiro espelhado
+			boolean flipped = signatures[table] != signature;
+			
+			if(flipped && signatures[table] != TablebaseFormat.flip(signature)) {
+				continue;
+			}
+			
+			long index = TablebaseFormat.index(chessMatch, codes[table], flipped);
+			int value = data[table].get(TablebaseFormat.HEADER_SIZE + (int) index) & 0xFF;
+			return (value == TablebaseFormat.INVALID) ? NOT_FOUND : value;
+		}
+		
+		return NOT_FOUND;
+	}
+	
+	public int probeWdl(ChessMatch chessMatch) {
+		int value = probe(chessMatch);
+		return (value == NOT_FOUND) ? UNKNOWN : wdl(value);
+	}
+	
+	//meios-lances até o mate; zero com o jogador da vez já em mate e também para empates
+	public int probeDtm(ChessMatch chessMatch) {
+		int value = probe(chessMatch);
+		return (value == NOT_FOUND) ? UNKNOWN : dtm(value);
+	}
+	
+	public static int wdl(int value) {
+		if(value == TablebaseFormat.DRAW) {
+			return DRAW;
+		}
+		
+		return ((value - 1) % 2 == 1) ? WIN : LOSS;
+	}
+	
+	public static int dtm(int value) {
+		return (value == TablebaseFormat.DRAW) ? 0 : value - 1;
+	}
+	
+	private static int[] readHeader(Path file, MappedByteBuffer buffer, long size) throws IOException {
+		for(int i = 0; i < TablebaseFormat.MAGIC.length; i++) {
+			if(size < TablebaseFormat.HEADER_SIZE || buffer.get(i) != TablebaseFormat.MAGIC[i]) {
+				throw new IOException("Arquivo de tablebase inválido: " + file);
+			}
+		}
+		
+		int pieces = buffer.get(TablebaseFormat.MAGIC.length);
+		if(pieces < 2 || pieces > TablebaseFormat.MAX_PIECES || size != TablebaseFormat.HEADER_SIZE + TablebaseFormat.entries(pieces)) {
+			throw new IOException("Arquivo de tablebase inválido: " + file);
+		}
+		
+		int[] codes = new int[pieces];
+		for(int i = 0; i < pieces; i++) {
+			codes[i] = buffer.get(TablebaseFormat.MAGIC.length + 1 + i);
+		}
+		
+		return codes;
+	}
+	
+	//uso: Tablebase <diretório> <fen>
+	public static void main(String[] args) throws IOException {
+		Tablebase tablebase = new Tablebase(Paths.get(args[0]));
+		ChessMatch chessMatch = new ChessMatch(args[1]);
+		int value = tablebase.probe(chessMatch);
+		
+		if(value == NOT_FOUND) {
+			System.out.println("Posição fora das " + tablebase.getTableCount() + " tabelas");
+		} else if(wdl(value) == DRAW) {
+			System.out.println("Empate");
+		} else {
+			System.out.println(((wdl(value) == WIN) ? "Vitória" : "Derrota") + " do jogador da vez, mate em " + dtm(value) + " meios-lances");
+		}
+	}
+}
\ No newline at end of file
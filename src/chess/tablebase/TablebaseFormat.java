@@ -0,0 +1,150 @@
+package chess.tablebase;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+//formato próprio: cabeçalho de 16 bytes e um byte por posição, indexado por vez e casa de cada peça
+final class TablebaseFormat {
+	
+	static final byte[] MAGIC = {'C', 'T', 'B', '1'};
+	static final int HEADER_SIZE = 16;
+	//com 4 peças seriam 2 * 64^4 posições, e os filhos guardados pelo gerador não cabem na memória
+	static final int MAX_PIECES = 3;
+	static final String EXTENSION = ".tb";
+	
+	//0 é empate, 255 posição impossível; os demais guardam lances até o mate + 1,
+	//e o jogador da vez vence quando esse número de lances é ímpar
+	static final int DRAW = 0;
+	static final int INVALID = 255;
+	static final int MAX_PLIES = 253;
+	
+	private static final String LETTERS = "PNBRQK";
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final Color[] COLORS = Color.values();
+	
+	private TablebaseFormat() {
+	}
+	
+	static int code(Color color, PieceType type) {
+		return color.ordinal() * LETTERS.length() + type.ordinal();
+	}
+	
+	static long entries(int pieces) {
+		return 2L << (6 * pieces);
+	}
+	
+	//contagem de cada tipo por cor, com 4 bits por tipo; o rei fica de fora
+	static long signature(long whiteCounts, long blackCounts) {
+		return (whiteCounts << 20) | blackCounts;
+	}
+	
+	static long signature(ChessMatch chessMatch) {
+		return signature(counts(chessMatch, Color.WHITE), counts(chessMatch, Color.BLACK));
+	}
+	
+	static long signature(int[] codes) {
+		long white = 0;
+		long black = 0;
+		
+		for(int code : codes) {
+			int type = code % TYPES.length;
+			
+			if(type == PieceType.KING.ordinal()) {
+				continue;
+			}
+			
+			if(code / TYPES.length == Color.WHITE.ordinal()) {
+				white += 1L << (4 * type);
+			} else {
+				black += 1L << (4 * type);
+			}
+		}
+		
+		return signature(white, black);
+	}
+	
+	static long flip(long signature) {
+		return ((signature & 0xFFFFF) << 20) | (signature >>> 20);
+	}
+	
+	//vez e casa de cada peça na ordem do cabeçalho; espelhado, as cores trocam e as fileiras se invertem
+	static long index(ChessMatch chessMatch, int[] codes, boolean flipped) {
+		Color sideToMove = chessMatch.getSideToMove();
+		long index = (flipped ? opponent(sideToMove) : sideToMove).ordinal();
+		
+		for(int i = 0; i < codes.length; i++) {
+			Color color = COLORS[codes[i] / TYPES.length];
+			long pieces = chessMatch.pieces(flipped ? opponent(color) : color, TYPES[codes[i] % TYPES.length]);
+			
+			//peças repetidas do mesmo tipo entram em ordem de casa
+			for(int j = 0; j < i; j++) {
+				if(codes[j] == codes[i]) {
+					pieces &= pieces - 1;
+				}
+			}
+			
+			int square = Long.numberOfTrailingZeros(pieces);
+			index = index * 64 + (flipped ? square ^ 56 : square);
+		}
+		
+		return index;
+	}
+	
+	//KQvK vira os códigos do rei e da dama brancos e do rei preto
+	static int[] parseName(String name) {
+		int separator = name.indexOf('v');
+		int[] codes = new int[name.length() - 1];
+		
+		if(separator < 1 || name.charAt(0) != 'K' || separator + 1 >= name.length() || name.charAt(separator + 1) != 'K' || codes.length > MAX_PIECES) {
+			throw new IllegalArgumentException("Material inválido: " + name);
+		}
+		
+		for(int i = 0, j = 0; i < name.length(); i++) {
+			if(i == separator) {
+				continue;
+			}
+			
+			int type = LETTERS.indexOf(name.charAt(i));
+			if(type < 0 || (i > 0 && i != separator + 1 && type == PieceType.KING.ordinal())) {
+				throw new IllegalArgumentException("Material inválido: " + name);
+			}
+			
+			codes[j++] = code((i < separator) ? Color.WHITE : Color.BLACK, TYPES[type]);
+		}
+		
+		return codes;
+	}
+	
+	static char letter(int code) {
+		char letter = LETTERS.charAt(code % LETTERS.length());
+		return (code / LETTERS.length() == Color.WHITE.ordinal()) ? letter : Character.toLowerCase(letter);
+	}
+	
+	private static long counts(ChessMatch chessMatch, Color color) {
+		long counts = 0;
+		
+		for(int type = 0; type < PieceType.KING.ordinal(); type++) {
+			counts |= (long) Long.bitCount(chessMatch.pieces(color, TYPES[type])) << (4 * type);
+		}
+		
+		return counts;
+	}
+	
+	private static Color opponent(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+	
+	//nome do arquivo a partir dos códigos das peças, por exemplo KQvK.tb
+	static String fileName(int[] codes) {
+		StringBuilder white = new StringBuilder();
+		StringBuilder black = new StringBuilder();
+		
+		for(int code : codes) {
+			char letter = LETTERS.charAt(code % LETTERS.length());
+			(code / LETTERS.length() == Color.WHITE.ordinal() ? white : black).append(letter);
+		}
+		
+		return white + "v" + black + EXTENSION;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.MoveGenerator;
+import chess.PieceType;
+
+public class TablebaseGenerator {
+	
+	//sem peões e com peças menores primeiro, para que as promoções encontrem suas tabelas
+	private static final String[] DEFAULT_TABLES = {"KNvK", "KBvK", "KRvK", "KQvK", "KPvK"};
+	
+	private Path directory;
+	private Tablebase tablebase;
+	
+	public TablebaseGenerator(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+		tablebase = new Tablebase(directory);
+	}
+	
+	//análise retrógrada: os lances vêm do ChessMatch, então a tabela segue as mesmas regras das peças;
+	//lances que mudam o material são resolvidos pelas tabelas já geradas no diretório
+	public Path generate(String name) throws IOException {
+		int[] codes = TablebaseFormat.parseName(name);
+		int size = (int) TablebaseFormat.entries(codes.length);
+		byte[] values = new byte[size];
+		int[][] children = new int[size][];
+		ThreadLocal<ChessMatch> matches = ThreadLocal.withInitial(ChessMatch::new);
+		ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[MoveGenerator.MAX_MOVES]);
+		
+		//filhos de cada posição: índice na própria tabela ou, negativo, o valor vindo de outra tabela
+		IntStream.range(0, size).parallel().forEach(index -> {
+			String fen = fen(codes, index);
+			
+			if(fen == null) {
+				values[index] = (byte) TablebaseFormat.INVALID;
+				return;
+			}
+			
+			ChessMatch chessMatch = matches.get();
+			chessMatch.loadFen(fen);
+			
+			//o jogador que acabou de jogar não pode ter deixado o rei em xeque
+			Color opponent = (chessMatch.getSideToMove() == Color.WHITE) ? Color.BLACK : Color.WHITE;
+			int king = Long.numberOfTrailingZeros(chessMatch.pieces(opponent, PieceType.KING));
+			if(chessMatch.attackersTo(king, chessMatch.getSideToMove(), chessMatch.getOccupied()) != 0) {
+				values[index] = (byte) TablebaseFormat.INVALID;
+				return;
+			}
+			
+			if(chessMatch.getStalemate()) {
+				return;
+			}
+			
+			if(chessMatch.getCheckMate()) {
+				values[index] = 1;
+				return;
+			}
+			
+			int[] moves = buffers.get();
+			int count = chessMatch.generateLegalMoves(moves);
+			int[] list = new int[count];
+			
+			for(int i = 0; i < count; i++) {
+				chessMatch.makeMove(moves[i]);
+				list[i] = child(chessMatch, codes);
+				chessMatch.unmakeMove();
+			}
+			
+			children[index] = list;
+		});
+		
+		//valores vindos de outras tabelas ainda podem resolver posições depois de passadas sem mudança
+		int external = 0;
+		for(int[] list : children) {
+			for(int i = 0; list != null && i < list.length; i++) {
+				external = Math.max(external, -list[i] - 1);
+			}
+		}
+		
+		//na passada n ficam resolvidas as posições com mate em n meios-lances
+		AtomicBoolean changed = new AtomicBoolean(true);
+		for(int plies = 1; plies <= TablebaseFormat.MAX_PLIES && (changed.get() || plies <= external); plies++) {
+			int current = plies;
+			changed.set(false);
+			
+			IntStream.range(0, size).parallel().forEach(index -> {
+				if(values[index] != 0 || children[index] == null) {
+					return;
+				}
+				
+				int value = resolve(values, children[index], current);
+				if(value != 0) {
+					values[index] = (byte) value;
+					changed.set(true);
+				}
+			});
+		}
+		
+		Path file = directory.resolve(TablebaseFormat.fileName(codes));
+		write(file, codes, values);
+		tablebase = new Tablebase(directory);
+		return file;
+	}
+	
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+	
+	//valor da posição se ela se resolve nesta passada, usando só filhos resolvidos antes dela
+	private static int resolve(byte[] values, int[] children, int plies) {
+		boolean allLost = true;
+		int longest = 0;
+		
+		for(int child : children) {
+			int value = (child < 0) ? -child - 1 : values[child] & 0xFF;
+			int childPlies = value - 1;
+			
+			if(value == TablebaseFormat.DRAW || childPlies >= plies) {
+				allLost = false;
+				continue;
+			}
+			
+			//o adversário perde: vitória pelo caminho mais curto
+			if(childPlies % 2 == 0) {
+				if(childPlies == plies - 1) {
+					return plies + 1;
+				}
+				
+				allLost = false;
+			} else {
+				longest = Math.max(longest, childPlies);
+			}
+		}
+		
+		//todos os lances levam a vitória do adversário: perde pelo caminho mais longo
+		return (allLost && longest == plies - 1) ? plies + 1 : 0;
+	}
+	
+	private int child(ChessMatch chessMatch, int[] codes) {
+		long signature = TablebaseFormat.signature(chessMatch);
+		
+		if(signature == TablebaseFormat.signature(codes)) {
+			return (int) TablebaseFormat.index(chessMatch, codes, false);
+		}
+		
+		if(signature == TablebaseFormat.flip(TablebaseFormat.signature(codes)) && signature != TablebaseFormat.signature(codes)) {
+			return (int) TablebaseFormat.index(chessMatch, codes, true);
+		}
+		
+		//só os reis sobraram
+		if(Long.bitCount(chessMatch.getOccupied()) == 2) {
+			return -TablebaseFormat.DRAW - 1;
+		}
+		
+		int value = tablebase.probe(chessMatch);
+		if(value == Tablebase.NOT_FOUND) {
+			throw new IllegalStateException("Falta a tabela para a posição " + chessMatch.toFen());
+		}
+		
+		return -value - 1;
+	}
+	
+	//posição do índice em FEN, ou null se as peças se sobrepõem ou há peão na primeira ou última fileira
+	private static String fen(int[] codes, int index) {
+		char[] board = new char[64];
+		int rest = index;
+		
+		for(int i = codes.length - 1; i >= 0; i--) {
+			int square = rest & 63;
+			rest >>>= 6;
+			
+			if(board[square] != 0 || (codes[i] % 6 == PieceType.PAWN.ordinal() && (square < 8 || square >= 56))) {
+				return null;
+			}
+			
+			board[square] = TablebaseFormat.letter(codes[i]);
+		}
+		
+		StringBuilder fen = new StringBuilder();
+		for(int row = 0; row < 8; row++) {
+			int empty = 0;
+			
+			for(int column = 0; column < 8; column++) {
+				char piece = board[row * 8 + column];
+				
+				if(piece == 0) {
+					empty++;
+					continue;
+				}
+				
+				if(empty > 0) {
+					fen.append(empty);
+					empty = 0;
+				}
+				fen.append(piece);
+			}
+			
+			if(empty > 0) {
+				fen.append(empty);
+			}
+			if(row < 7) {
+				fen.append('/');
+			}
+		}
+		
+		fen.append((rest == Color.WHITE.ordinal()) ? " w - - 0 1" : " b - - 0 1");
+		return fen.toString();
+	}
+	
+	private static void write(Path file, int[] codes, byte[] values) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(TablebaseFormat.HEADER_SIZE);
+		header.put(TablebaseFormat.MAGIC);
+		header.put((byte) codes.length);
+		for(int code : codes) {
+			header.put((byte) code);
+		}
+		header.position(TablebaseFormat.HEADER_SIZE).flip();
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(header);
+			channel.write(ByteBuffer.wrap(values));
+		}
+	}
+	
+	//uso: TablebaseGenerator <diretório> [KQvK KRvK ...]
+	public static void main(String[] args) throws IOException {
+		TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]));
+		String[] names = (args.length > 1) ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_TABLES;
+		
+		for(String name : names) {
+			long start = System.nanoTime();
+			Path file = generator.generate(name);
+			System.out.printf("%s gerada em %.1f s%n", file, (System.nanoTime() - start) / 1e9);
+		}
+	}
+}
\ No newline at end of file